@@ -5,9 +5,9 @@ echo "========================================="
 echo "Building Library Management System"
 echo "========================================="
 
-# Set up Java 17 environment for Render
+# Set up Java 21 environment for Render
 echo "Setting up Java environment..."
-export JAVA_HOME=/opt/render/project/.render/java/jdk-17
+export JAVA_HOME=/opt/render/project/.render/java/jdk-21
 export PATH=$JAVA_HOME/bin:$PATH
 
 # Verify Java version
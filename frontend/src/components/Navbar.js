@@ -1,6 +1,7 @@
 import React from 'react';
 import { Link, useNavigate } from 'react-router-dom';
-import { getUser, logout, hasRole } from '../utils/auth';
+import { getUser, getAuthToken, getRefreshToken, logout, hasRole } from '../utils/auth';
+import { authAPI } from '../services/api';
 import './Navbar.css';
 
 const Navbar = () => {
@@ -8,6 +9,7 @@ const Navbar = () => {
   const user = getUser();
 
   const handleLogout = () => {
+    authAPI.logout(getAuthToken(), getRefreshToken()).catch(() => {});
     logout();
     navigate('/login');
   };
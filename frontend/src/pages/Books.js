@@ -21,7 +21,17 @@ const Books = () => {
   });
 
   useEffect(() => {
+    // Subscribe before loading so no change between the two is missed
+    const closeStream = bookAPI.streamAvailability((changes) => {
+      const removed = new Set(changes.filter((change) => change.removed).map((change) => change.bookId));
+      const copies = new Map(changes.filter((change) => !change.removed)
+        .map((change) => [change.bookId, change.availableCopies]));
+      setBooks((current) => current.filter((book) => !removed.has(book.id)).map((book) => (
+        copies.has(book.id) ? { ...book, availableCopies: copies.get(book.id) } : book
+      )));
+    });
     loadBooks();
+    return closeStream;
   }, []);
 
   const loadBooks = async () => {
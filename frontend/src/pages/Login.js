@@ -1,7 +1,7 @@
 import React, { useState } from 'react';
 import { useNavigate, Link } from 'react-router-dom';
 import { authAPI } from '../services/api';
-import { setAuthToken, setUser } from '../utils/auth';
+import { setAuthToken, setRefreshToken, setUser } from '../utils/auth';
 import './Login.css';
 
 const Login = () => {
@@ -27,9 +27,10 @@ const Login = () => {
 
     try {
       const response = await authAPI.signin(formData);
-      const { token, id, username, email, roles } = response.data;
+      const { accessToken, refreshToken, id, username, email, roles } = response.data;
       
-      setAuthToken(token);
+      setAuthToken(accessToken);
+      setRefreshToken(refreshToken);
       setUser({ id, username, email, roles });
       
       navigate('/');
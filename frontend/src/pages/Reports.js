@@ -4,6 +4,7 @@ import './Reports.css';
 
 const Reports = () => {
   const [overdueBooks, setOverdueBooks] = useState([]);
+  const [totalOverdue, setTotalOverdue] = useState(0);
   const [loading, setLoading] = useState(true);
 
   useEffect(() => {
@@ -14,6 +15,7 @@ const Reports = () => {
     try {
       const response = await reportAPI.getOverdue();
       setOverdueBooks(response.data.overdueBooks || []);
+      setTotalOverdue(response.data.totalOverdue || 0);
     } catch (error) {
       console.error('Error loading overdue books:', error);
     } finally {
@@ -38,7 +40,7 @@ const Reports = () => {
       <div className="report-section">
         <h2>Overdue Books Report</h2>
         <div className="report-summary">
-          <p><strong>Total Overdue Books:</strong> {overdueBooks.length}</p>
+          <p><strong>Total Overdue Books:</strong> {totalOverdue}</p>
         </div>
 
         {overdueBooks.length > 0 ? (
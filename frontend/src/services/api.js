@@ -23,12 +23,43 @@ api.interceptors.request.use(
   }
 );
 
-// Handle token expiration
+// Handle token expiration: try one refresh (shared by all requests that failed meanwhile), then give up
+let refreshRequest = null;
+
+const refreshAccessToken = () => {
+  if (!refreshRequest) {
+    refreshRequest = axios
+      .post(`${API_URL}/auth/refresh`, { refreshToken: localStorage.getItem('refreshToken') })
+      .then((response) => {
+        localStorage.setItem('token', response.data.accessToken);
+        localStorage.setItem('refreshToken', response.data.refreshToken);
+        return response.data.accessToken;
+      })
+      .finally(() => {
+        refreshRequest = null;
+      });
+  }
+  return refreshRequest;
+};
+
 api.interceptors.response.use(
   (response) => response,
-  (error) => {
-    if (error.response?.status === 401) {
+  async (error) => {
+    const original = error.config;
+    if (error.response?.status === 401 && original && !original._retry
+        && !original.url?.startsWith('/auth/') && localStorage.getItem('refreshToken')) {
+      original._retry = true;
+      try {
+        const token = await refreshAccessToken();
+        original.headers.Authorization = `Bearer ${token}`;
+        return api(original);
+      } catch (refreshError) {
+        // fall through to sign-out
+      }
+    }
+    if (error.response?.status === 401 && !original?.url?.startsWith('/auth/signin')) {
       localStorage.removeItem('token');
+      localStorage.removeItem('refreshToken');
       localStorage.removeItem('user');
       window.location.href = '/login';
     }
@@ -40,6 +71,9 @@ api.interceptors.response.use(
 export const authAPI = {
   signup: (data) => api.post('/auth/signup', data),
   signin: (data) => api.post('/auth/signin', data),
+  refresh: (refreshToken) => api.post('/auth/refresh', { refreshToken }),
+  logout: (accessToken, refreshToken) =>
+    api.post('/auth/logout', { refreshToken }, { headers: { Authorization: `Bearer ${accessToken}` } }),
 };
 
 // Book API
@@ -50,7 +84,15 @@ export const bookAPI = {
   update: (id, data) => api.put(`/books/${id}`, data),
   delete: (id) => api.delete(`/books/${id}`),
   search: (keyword) => api.get(`/books/search?keyword=${keyword}`),
+  suggest: (prefix) => api.get(`/books/suggest?prefix=${encodeURIComponent(prefix)}`),
   getByCategory: (category) => api.get(`/books/category/${category}`),
+  // Live availability: calls onChange with [{ bookId, availableCopies }] or [{ bookId, removed: true }] for a
+  // deleted book; returns a function that closes the stream
+  streamAvailability: (onChange) => {
+    const source = new EventSource(`${API_URL}/books/stream`);
+    source.addEventListener('availability', (event) => onChange(JSON.parse(event.data)));
+    return () => source.close();
+  },
 };
 
 // Member API
@@ -60,6 +102,7 @@ export const memberAPI = {
   create: (data) => api.post('/members', data),
   update: (id, data) => api.put(`/members/${id}`, data),
   delete: (id) => api.delete(`/members/${id}`),
+  getSummary: (id) => api.get(`/members/${id}/summary`),
 };
 
 // Transaction API
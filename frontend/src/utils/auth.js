@@ -10,6 +10,18 @@ export const getAuthToken = () => {
   return localStorage.getItem('token');
 };
 
+export const setRefreshToken = (token) => {
+  if (token) {
+    localStorage.setItem('refreshToken', token);
+  } else {
+    localStorage.removeItem('refreshToken');
+  }
+};
+
+export const getRefreshToken = () => {
+  return localStorage.getItem('refreshToken');
+};
+
 export const setUser = (user) => {
   if (user) {
     localStorage.setItem('user', JSON.stringify(user));
@@ -35,6 +47,7 @@ export const hasRole = (role) => {
 
 export const logout = () => {
   localStorage.removeItem('token');
+  localStorage.removeItem('refreshToken');
   localStorage.removeItem('user');
 };
 
@@ -0,0 +1,65 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.model.Book;
+import com.example.demo.model.Member;
+import com.example.demo.model.Transaction;
+import com.example.demo.repository.BookRepository;
+import com.example.demo.repository.MemberRepository;
+import com.example.demo.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Boots the application against the in-memory H2 database from src/test/resources
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CirculationBenchmark {
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private Long bookId;
+    private Long memberId;
+
+    @Setup
+    public void setUp() {
+        context = SpringApplication.run(DemoApplication.class, "--server.port=0", "--logging.level.root=WARN");
+        transactionService = context.getBean(TransactionService.class);
+        bookId = context.getBean(BookRepository.class).save(new Book("Benchmark", "Author", "bench-1", 1_000_000)).getId();
+        memberId = context.getBean(MemberRepository.class)
+                .save(new Member("Bench", "Member", "bench@example.com", "555-0100", LocalDate.of(1990, 1, 1)))
+                .getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Transaction borrowBook() {
+        return transactionService.borrowBook(bookId, memberId);
+    }
+
+    @Benchmark
+    public Transaction borrowAndReturnBook() {
+        Transaction transaction = transactionService.borrowBook(bookId, memberId);
+        return transactionService.returnBook(transaction.getId());
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dto.TransactionResponse;
+import com.example.demo.model.Book;
+import com.example.demo.model.Member;
+import com.example.demo.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Serializes what the controllers actually return: Book entities and TransactionResponse DTOs
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+    @Param({"20", "1000"})
+    private int size;
+
+    private JsonMapper jsonMapper;
+    private List<Book> books;
+    private List<TransactionResponse> transactions;
+
+    @Setup
+    public void setUp() {
+        jsonMapper = JsonMapper.builder().findAndAddModules().build();
+        books = new ArrayList<>();
+        transactions = new ArrayList<>();
+        Member member = new Member("Ada", "Lovelace", "ada@example.com", "555-0100", LocalDate.of(1990, 1, 1));
+        member.setId(1L);
+        for (int i = 0; i < size; i++) {
+            Book book = new Book("Title " + i, "Author " + i, "978-0-00-000000-" + i, 3);
+            book.setId((long) i);
+            book.setCategory("Fiction");
+            book.setPublisher("Publisher");
+            book.setPublicationDate(LocalDate.of(2000, 1, 1));
+            books.add(book);
+
+            Transaction transaction = new Transaction(book, member);
+            transaction.setId((long) i);
+            transactions.add(new TransactionResponse(transaction));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeBooks() {
+        return jsonMapper.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] serializeTransactions() {
+        return jsonMapper.writeValueAsBytes(transactions);
+    }
+}
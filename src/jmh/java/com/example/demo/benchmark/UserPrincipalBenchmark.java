@@ -0,0 +1,41 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.ERole;
+import com.example.demo.model.Role;
+import com.example.demo.model.User;
+import com.example.demo.security.UserPrincipal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserPrincipalBenchmark {
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = new User("librarian", "librarian@example.com", "hash");
+        user.setId(1L);
+        user.setRoles(Set.of(new Role(ERole.ROLE_LIBRARIAN), new Role(ERole.ROLE_MEMBER)));
+    }
+
+    @Benchmark
+    public UserPrincipal create() {
+        return UserPrincipal.create(user);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.config;
+
+import com.example.demo.dto.BookImportResult;
+import com.example.demo.service.BookImportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Imports catalog files given on the command line, e.g. java -jar app.jar --import.books=/data/branch.csv
+ * Files ending in .csv are read as CSV, anything else as NDJSON.
+ */
+@Component
+public class BookImportRunner implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(BookImportRunner.class);
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<String> files = args.getOptionValues("import.books");
+        if (files == null) {
+            return;
+        }
+        for (String file : files) {
+            logger.info("Importing books from {}", file);
+            try (InputStream input = Files.newInputStream(Path.of(file))) {
+                BookImportResult result = bookImportService.importBooks(input, BookImportService.formatOf(file));
+                for (String error : result.getErrors()) {
+                    logger.warn("{}: {}", file, error);
+                }
+            }
+        }
+    }
+}
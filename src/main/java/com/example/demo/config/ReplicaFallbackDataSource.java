@@ -0,0 +1,45 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Read-only connections from the replica pool, or from the primary while the replica can't hand one out.
+ * After a failure the replica is left alone for retry-ms, so reads don't each wait out its connection timeout.
+ */
+public class ReplicaFallbackDataSource extends DelegatingDataSource {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaFallbackDataSource.class);
+
+    private final DataSource primary;
+    private final long retryMs;
+    private final Counter fallbacks;
+
+    private volatile long replicaDownUntil;
+
+    public ReplicaFallbackDataSource(DataSource replica, DataSource primary, long retryMs, Counter fallbacks) {
+        super(replica);
+        this.primary = primary;
+        this.retryMs = retryMs;
+        this.fallbacks = fallbacks;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (System.currentTimeMillis() >= replicaDownUntil) {
+            try {
+                return super.getConnection();
+            } catch (SQLException e) {
+                replicaDownUntil = System.currentTimeMillis() + retryMs;
+                logger.warn("Read replica unavailable, reading from the primary for {} ms: {}", retryMs, e.getMessage());
+            }
+        }
+        fallbacks.increment();
+        return primary.getConnection();
+    }
+}
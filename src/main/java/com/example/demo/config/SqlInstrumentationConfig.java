@@ -0,0 +1,48 @@
+package com.example.demo.config;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class SqlInstrumentationConfig {
+
+    // Wraps the pool in a datasource-proxy so SqlStatistics sees every statement with its timing and
+    // bind parameters. Static so the post-processor is registered before the DataSource is created.
+    @Bean
+    public static BeanPostProcessor sqlStatisticsDataSourcePostProcessor(ObjectProvider<SqlStatistics> sqlStatistics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // The read replica router only hands out connections of pools that are wrapped themselves
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource
+                        || bean instanceof LazyConnectionDataSourceProxy) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create(dataSource)
+                        .name(beanName)
+                        .afterQuery((execInfo, queryInfoList) -> {
+                            // Resolved lazily: the DataSource exists long before the listener's own dependencies
+                            SqlStatistics statistics = sqlStatistics.getIfAvailable();
+                            if (statistics != null) {
+                                statistics.afterQuery(execInfo, queryInfoList);
+                            }
+                        })
+                        .build();
+            }
+        };
+    }
+
+    // Applied by Boot to the application task executor, which also runs MVC async work such as streamed exports
+    @Bean
+    public TaskDecorator sqlStatisticsTaskDecorator(SqlStatistics sqlStatistics) {
+        return sqlStatistics::propagate;
+    }
+}
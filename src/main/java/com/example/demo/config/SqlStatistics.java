@@ -0,0 +1,221 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Sees every JDBC statement through the proxied DataSource. Counts statements per HTTP request
+ * (see {@link SqlStatisticsFilter}), flags requests that run too many of them - usually an N+1 -
+ * and logs slow statements with their bind parameters. All settings can be changed at runtime.
+ * A request's counter follows its work onto other threads through {@link #propagate}, which the MVC async
+ * executor (streamed exports, CompletableFuture results) and the password hashing pool apply. Statements
+ * the availability feed runs for all its subscribers at once belong to no request and are counted globally only.
+ */
+@Component
+public class SqlStatistics {
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatistics.class);
+
+    @Value("${sql.stats.enabled:true}")
+    private volatile boolean enabled;
+
+    @Value("${sql.stats.slow-query-ms:200}")
+    private volatile long slowQueryMs;
+
+    @Value("${sql.stats.request-statement-threshold:20}")
+    private volatile int requestStatementThreshold;
+
+    @Value("${sql.stats.log-all-statements:false}")
+    private volatile boolean logAllStatements;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ThreadLocal<RequestStats> currentRequest = new ThreadLocal<>();
+
+    private final AtomicLong statements = new AtomicLong();
+    private final AtomicLong slowQueries = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong flaggedRequests = new AtomicLong();
+
+    private DistributionSummary statementsPerRequest;
+    private Counter slowQueryCounter;
+
+    // Shared by every thread that works for the request
+    static final class RequestStats {
+        private int statements;
+        private long elapsedMs;
+        private final Map<String, Integer> countsBySql = new HashMap<>();
+
+        synchronized void record(List<QueryInfo> queryInfoList, long elapsed) {
+            statements += queryInfoList.size();
+            elapsedMs += elapsed;
+            for (QueryInfo queryInfo : queryInfoList) {
+                countsBySql.merge(queryInfo.getQuery(), 1, Integer::sum);
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        statementsPerRequest = DistributionSummary.builder("sql.statements.per.request")
+                .description("JDBC statements executed while serving one HTTP request")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        slowQueryCounter = Counter.builder("sql.slow.queries")
+                .description("Statements slower than the slow-query threshold")
+                .register(meterRegistry);
+    }
+
+    void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (!enabled) {
+            return;
+        }
+        statements.addAndGet(queryInfoList.size());
+        long elapsed = execInfo.getElapsedTime();
+
+        RequestStats request = currentRequest.get();
+        if (request != null) {
+            request.record(queryInfoList, elapsed);
+        }
+
+        if (elapsed >= slowQueryMs) {
+            slowQueries.incrementAndGet();
+            slowQueryCounter.increment();
+            logger.warn("Slow SQL ({} ms{}): {}", elapsed, execInfo.isBatch() ? ", batch of " + execInfo.getBatchSize() : "",
+                    describe(queryInfoList));
+        } else if (logAllStatements) {
+            logger.info("SQL ({} ms): {}", elapsed, describe(queryInfoList));
+        }
+    }
+
+    private String describe(List<QueryInfo> queryInfoList) {
+        return queryInfoList.stream()
+                .map(queryInfo -> queryInfo.getQuery() + formatParameters(queryInfo.getParametersList()))
+                .collect(Collectors.joining("; "));
+    }
+
+    private String formatParameters(List<List<ParameterSetOperation>> parametersList) {
+        if (parametersList.isEmpty()) {
+            return "";
+        }
+        // Batches can carry thousands of parameter sets; the first few are enough to reproduce the query
+        String shown = parametersList.stream()
+                .limit(5)
+                .map(parameters -> parameters.stream()
+                        .map(operation -> ParameterSetOperation.isSetNullParameterOperation(operation) || operation.getArgs().length < 2
+                                ? "null" : String.valueOf(operation.getArgs()[1]))
+                        .collect(Collectors.joining(", ", "(", ")")))
+                .collect(Collectors.joining(" "));
+        return " params " + shown + (parametersList.size() > 5 ? " ... " + parametersList.size() + " sets" : "");
+    }
+
+    RequestStats startRequest() {
+        if (!enabled) {
+            return null;
+        }
+        RequestStats request = new RequestStats();
+        currentRequest.set(request);
+        return request;
+    }
+
+    void detachRequest() {
+        currentRequest.remove();
+    }
+
+    /**
+     * Runs the task with the calling thread's request counter, if there is one.
+     */
+    public Runnable propagate(Runnable task) {
+        RequestStats request = currentRequest.get();
+        if (request == null) {
+            return task;
+        }
+        return () -> {
+            RequestStats previous = currentRequest.get();
+            currentRequest.set(request);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    currentRequest.remove();
+                } else {
+                    currentRequest.set(previous);
+                }
+            }
+        };
+    }
+
+    void finishRequest(RequestStats request, String method, String uri) {
+        if (request == null) {
+            return;
+        }
+        synchronized (request) {
+            requests.incrementAndGet();
+            statementsPerRequest.record(request.statements);
+            if (request.statements > requestStatementThreshold) {
+                flaggedRequests.incrementAndGet();
+                Map.Entry<String, Integer> mostRepeated = request.countsBySql.entrySet().stream()
+                        .max(Map.Entry.comparingByValue())
+                        .orElseThrow();
+                logger.warn("{} {} ran {} SQL statements ({} ms in the database); most repeated, {} times: {}",
+                        method, uri, request.statements, request.elapsedMs, mostRepeated.getValue(), mostRepeated.getKey());
+            }
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("enabled", enabled);
+        settings.put("slowQueryMs", slowQueryMs);
+        settings.put("requestStatementThreshold", requestStatementThreshold);
+        settings.put("logAllStatements", logAllStatements);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("settings", settings);
+        response.put("statements", statements.get());
+        response.put("slowQueries", slowQueries.get());
+        response.put("requests", requests.get());
+        response.put("flaggedRequests", flaggedRequests.get());
+        return response;
+    }
+
+    public void update(Boolean enabled, Long slowQueryMs, Integer requestStatementThreshold, Boolean logAllStatements) {
+        if (enabled != null) {
+            this.enabled = enabled;
+        }
+        if (slowQueryMs != null) {
+            this.slowQueryMs = slowQueryMs;
+        }
+        if (requestStatementThreshold != null) {
+            this.requestStatementThreshold = requestStatementThreshold;
+        }
+        if (logAllStatements != null) {
+            this.logAllStatements = logAllStatements;
+        }
+        logger.info("SQL statistics settings changed: {}", getStatistics().get("settings"));
+    }
+
+    public void reset() {
+        statements.set(0);
+        slowQueries.set(0);
+        requests.set(0);
+        flaggedRequests.set(0);
+    }
+}
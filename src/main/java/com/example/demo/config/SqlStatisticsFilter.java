@@ -0,0 +1,57 @@
+package com.example.demo.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Opens the per-request SQL counter before anything else touches the database, security included. An async
+// request (streamed export, sign-in) is only recorded once its async processing has completed
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+    @Autowired
+    private SqlStatistics sqlStatistics;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatistics.RequestStats stats = sqlStatistics.startRequest();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            sqlStatistics.detachRequest();
+            if (stats != null && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        sqlStatistics.finishRequest(stats, request.getMethod(), request.getRequestURI());
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                sqlStatistics.finishRequest(stats, request.getMethod(), request.getRequestURI());
+            }
+        }
+    }
+}
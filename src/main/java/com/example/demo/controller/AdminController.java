@@ -0,0 +1,42 @@
+package com.example.demo.controller;
+
+import com.example.demo.config.SqlStatistics;
+import com.example.demo.dto.SqlStatsSettings;
+import com.example.demo.service.OutboxDispatcher;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+    @Autowired
+    private SqlStatistics sqlStatistics;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @GetMapping("/sql-stats")
+    public ResponseEntity<Map<String, Object>> getSqlStatistics() {
+        return ResponseEntity.ok(sqlStatistics.getStatistics());
+    }
+
+    @PutMapping("/sql-stats")
+    public ResponseEntity<Map<String, Object>> updateSqlStatistics(@Valid @RequestBody SqlStatsSettings settings) {
+        sqlStatistics.update(settings.getEnabled(), settings.getSlowQueryMs(),
+                settings.getRequestStatementThreshold(), settings.getLogAllStatements());
+        if (Boolean.TRUE.equals(settings.getReset())) {
+            sqlStatistics.reset();
+        }
+        return ResponseEntity.ok(sqlStatistics.getStatistics());
+    }
+
+    @GetMapping("/outbox")
+    public ResponseEntity<Map<String, Object>> getOutboxStatistics() {
+        return ResponseEntity.ok(outboxDispatcher.getStatistics());
+    }
+}
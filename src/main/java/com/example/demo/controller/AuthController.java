@@ -1,19 +1,23 @@
 package com.example.demo.controller;
 
-import com.example.demo.dto.JwtResponse;
 import com.example.demo.dto.LoginRequest;
 import com.example.demo.dto.MessageResponse;
 import com.example.demo.dto.SignupRequest;
-import com.example.demo.model.User;
-import com.example.demo.repository.UserRepository;
+import com.example.demo.dto.TokenRefreshRequest;
+import com.example.demo.security.LoginRateLimiter;
 import com.example.demo.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -23,21 +27,50 @@ public class AuthController {
     AuthService authService;
 
     @Autowired
-    UserRepository userRepository;
+    LoginRateLimiter loginRateLimiter;
 
     @PostMapping("/signin")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
-        String jwt = authService.authenticateUser(loginRequest);
-        Authentication authentication = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
-        List<String> roles = authService.getUserRoles(authentication);
-        
-        User user = userRepository.findByUsername(loginRequest.getUsername()).orElseThrow();
-        
-        return ResponseEntity.ok(new JwtResponse(jwt,
-                user.getId(),
-                user.getUsername(),
-                user.getEmail(),
-                roles));
+    public CompletableFuture<ResponseEntity<?>> authenticateUser(@Valid @RequestBody LoginRequest loginRequest,
+                                                                 HttpServletRequest request) {
+        if (!loginRateLimiter.tryAcquire(loginRequest.getUsername(), request.getRemoteAddr())) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(loginRateLimiter.getRetryAfterSeconds()))
+                    .body(new MessageResponse("Error: Too many sign-in attempts, please try again later")));
+        }
+
+        try {
+            return authService.authenticateUser(loginRequest)
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                    .exceptionally(e -> {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        if (cause instanceof AuthenticationException) {
+                            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                                    .body(new MessageResponse("Error: Invalid username or password"));
+                        }
+                        throw new CompletionException(cause);
+                    });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(new MessageResponse("Error: Sign-in is busy, please try again shortly")));
+        }
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refreshToken(@Valid @RequestBody TokenRefreshRequest refreshRequest) {
+        try {
+            return ResponseEntity.ok(authService.refreshToken(refreshRequest.getRefreshToken()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                    @RequestBody(required = false) TokenRefreshRequest refreshRequest) {
+        String accessToken = authorization != null && authorization.startsWith("Bearer ") ? authorization.substring(7) : null;
+        authService.logout(accessToken, refreshRequest == null ? null : refreshRequest.getRefreshToken());
+        return ResponseEntity.ok(new MessageResponse("Logged out successfully!"));
     }
 
     @PostMapping("/signup")
@@ -50,4 +83,3 @@ public class AuthController {
         }
     }
 }
-
@@ -1,31 +1,114 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.BookPage;
+import com.example.demo.dto.BookSuggestion;
+import com.example.demo.dto.MessageResponse;
 import com.example.demo.model.Book;
+import com.example.demo.repository.CatalogVersion;
+import com.example.demo.service.AvailabilityFeed;
+import com.example.demo.service.BookImportService;
 import com.example.demo.service.BookService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    // Copy counts change all the time: clients may keep a response but must revalidate it before every use
+    private static final CacheControl CATALOG_CACHE = CacheControl.noCache().cachePublic();
+
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private AvailabilityFeed availabilityFeed;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping
-    public ResponseEntity<List<Book>> getAllBooks() {
-        return ResponseEntity.ok(bookService.getAllBooks());
+    public ResponseEntity<List<Book>> getAllBooks(WebRequest request) {
+        return conditional(request, catalogVersion.catalogTag(), bookService::getAllBooks);
+    }
+
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBooks() {
+        StreamingResponseBody body = out -> {
+            try {
+                bookService.forEachBook(book -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(book));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok()
+                .header("Content-Type", APPLICATION_NDJSON_VALUE)
+                .body(body);
+    }
+
+    // Server-Sent Events: "availability" events carrying [{bookId, availableCopies}] for books that changed
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAvailability() {
+        SseEmitter emitter = availabilityFeed.subscribe();
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok().header("X-Accel-Buffering", "no").body(emitter);
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<BookPage> getBooksPage(@RequestParam(required = false) String cursor,
+                                                 @RequestParam(required = false) Integer size,
+                                                 @RequestParam(defaultValue = "id") String sort,
+                                                 @RequestParam(defaultValue = "asc") String direction,
+                                                 WebRequest request) {
+        try {
+            return conditional(request, catalogVersion.catalogTag(),
+                    () -> bookService.getBooksPage(cursor, size, sort, direction));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Book> getBookById(@PathVariable Long id) {
+    public ResponseEntity<Book> getBookById(@PathVariable Long id, WebRequest request) {
+        String etag = catalogVersion.bookTag(id);
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
         Optional<Book> book = bookService.getBookById(id);
-        return book.map(ResponseEntity::ok)
+        return book.map(found -> ResponseEntity.ok().eTag(etag).cacheControl(CATALOG_CACHE).body(found))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -39,6 +122,17 @@ public class BookController {
         }
     }
 
+    @PostMapping(value = "/import", consumes = {"text/csv", APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> importBooks(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                         InputStream body) throws IOException {
+        String format = contentType.startsWith("text/csv") ? BookImportService.CSV : BookImportService.NDJSON;
+        try {
+            return ResponseEntity.ok(bookImportService.importBooks(body, format));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Book> updateBook(@PathVariable Long id, @RequestBody Book bookDetails) {
         try {
@@ -60,13 +154,35 @@ public class BookController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Book>> searchBooks(@RequestParam String keyword) {
-        return ResponseEntity.ok(bookService.searchBooks(keyword));
+    public ResponseEntity<List<Book>> searchBooks(@RequestParam String keyword,
+                                                  @RequestParam(defaultValue = "0") int page,
+                                                  @RequestParam(defaultValue = "50") int size,
+                                                  WebRequest request) {
+        return conditional(request, catalogVersion.catalogTag(), () -> bookService.searchBooks(keyword, page, size));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<BookSuggestion>> suggest(@RequestParam String prefix,
+                                                        @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(bookService.suggest(prefix, limit));
     }
 
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<Book>> getBooksByCategory(@PathVariable String category) {
-        return ResponseEntity.ok(bookService.getBooksByCategory(category));
+    public ResponseEntity<List<Book>> getBooksByCategory(@PathVariable String category, WebRequest request) {
+        return conditional(request, catalogVersion.catalogTag(), () -> bookService.getBooksByCategory(category));
+    }
+
+    // The tag is taken before the read, so a response can only ever carry a tag older than its content,
+    // and a 304 is answered from the version counters without going near the database
+    private <T> ResponseEntity<T> conditional(WebRequest request, String etag, Supplier<T> body) {
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CATALOG_CACHE).body(body.get());
+    }
+
+    private <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CATALOG_CACHE).build();
     }
 }
 
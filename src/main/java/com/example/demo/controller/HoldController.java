@@ -0,0 +1,50 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.HoldResponse;
+import com.example.demo.service.HoldService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/books/{bookId}/holds")
+public class HoldController {
+    @Autowired
+    private HoldService holdService;
+
+    @GetMapping
+    public ResponseEntity<List<HoldResponse>> getWaitingHolds(@PathVariable Long bookId) {
+        return ResponseEntity.ok(holdService.getWaitingHolds(bookId));
+    }
+
+    @GetMapping("/{holdId}")
+    public ResponseEntity<HoldResponse> getHold(@PathVariable Long bookId, @PathVariable Long holdId) {
+        try {
+            return ResponseEntity.ok(holdService.getHold(bookId, holdId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping
+    public ResponseEntity<HoldResponse> placeHold(@PathVariable Long bookId, @RequestParam Long memberId) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(holdService.placeHold(bookId, memberId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("/{holdId}")
+    public ResponseEntity<HoldResponse> cancelHold(@PathVariable Long bookId, @PathVariable Long holdId) {
+        try {
+            return ResponseEntity.ok(holdService.cancelHold(bookId, holdId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
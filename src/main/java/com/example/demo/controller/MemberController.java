@@ -1,7 +1,9 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.MemberSummary;
 import com.example.demo.model.Member;
 import com.example.demo.service.MemberService;
+import com.example.demo.service.MemberSummaryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,6 +19,9 @@ public class MemberController {
     @Autowired
     private MemberService memberService;
 
+    @Autowired
+    private MemberSummaryService memberSummaryService;
+
     @GetMapping
     public ResponseEntity<List<Member>> getAllMembers() {
         return ResponseEntity.ok(memberService.getAllMembers());
@@ -29,6 +34,13 @@ public class MemberController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/{id}/summary")
+    public ResponseEntity<MemberSummary> getMemberSummary(@PathVariable Long id) {
+        return memberSummaryService.getSummary(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PostMapping
     public ResponseEntity<Member> createMember(@RequestBody Member member) {
         try {
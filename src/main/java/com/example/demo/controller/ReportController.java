@@ -1,11 +1,16 @@
 package com.example.demo.controller;
 
-import com.example.demo.model.Transaction;
-import com.example.demo.service.TransactionService;
+import com.example.demo.dto.TransactionResponse;
+import com.example.demo.service.AnalyticsRollup;
+import com.example.demo.service.CacheStatisticsService;
+import com.example.demo.service.CirculationAnalyticsService;
+import com.example.demo.service.OverdueIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -15,17 +20,87 @@ import java.util.Map;
 @RequestMapping("/api/reports")
 public class ReportController {
     @Autowired
-    private TransactionService transactionService;
+    private OverdueIndex overdueIndex;
 
+    @Autowired
+    private CacheStatisticsService cacheStatisticsService;
+
+    @Autowired
+    private CirculationAnalyticsService analyticsService;
+
+    @Autowired
+    private AnalyticsRollup analyticsRollup;
+
+    // Paged by cursor: pass the dueDate and id of the last loan seen as afterDueDate and afterId
     @GetMapping("/overdue")
-    public ResponseEntity<Map<String, Object>> getOverdueBooks() {
-        List<Transaction> overdueTransactions = transactionService.getOverdueBooks();
+    public ResponseEntity<Map<String, Object>> getOverdueBooks(@RequestParam(required = false)
+                                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate afterDueDate,
+                                                               @RequestParam(required = false) Long afterId,
+                                                               @RequestParam(defaultValue = "50") int size,
+                                                               @RequestParam(required = false) String groupBy) {
+        int pageSize = Math.max(1, Math.min(size, 500));
+        List<TransactionResponse> overdueTransactions = overdueIndex.page(afterDueDate, afterId, pageSize);
         
         Map<String, Object> response = new HashMap<>();
-        response.put("totalOverdue", overdueTransactions.size());
+        response.put("totalOverdue", overdueIndex.size());
+        response.put("totalFines", overdueIndex.totalFines());
+        response.put("size", pageSize);
         response.put("overdueBooks", overdueTransactions);
+        if (overdueTransactions.size() == pageSize) {
+            TransactionResponse last = overdueTransactions.get(pageSize - 1);
+            response.put("nextAfterDueDate", last.getDueDate());
+            response.put("nextAfterId", last.getId());
+        }
+        if ("member".equalsIgnoreCase(groupBy)) {
+            response.put("groups", overdueIndex.groupByMember());
+        } else if ("book".equalsIgnoreCase(groupBy)) {
+            response.put("groups", overdueIndex.groupByBook());
+        }
         
         return ResponseEntity.ok(response);
     }
-}
 
+    @GetMapping("/analytics/top-books")
+    public ResponseEntity<Map<String, Object>> getTopBooks(@RequestParam(defaultValue = "30") int days,
+                                                           @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(analyticsService.topBooks(days, limit));
+    }
+
+    @GetMapping("/analytics/category-trends")
+    public ResponseEntity<Map<String, Object>> getCategoryTrends(@RequestParam(defaultValue = "90") int days) {
+        return ResponseEntity.ok(analyticsService.categoryTrends(days));
+    }
+
+    @GetMapping("/analytics/utilization")
+    public ResponseEntity<Map<String, Object>> getUtilization(@RequestParam(required = false) Long bookId,
+                                                              @RequestParam(defaultValue = "30") int days) {
+        Map<String, Object> utilization = analyticsService.utilization(bookId, days);
+        return utilization == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(utilization);
+    }
+
+    @GetMapping("/analytics/member-activity")
+    public ResponseEntity<Map<String, Object>> getMemberActivity(@RequestParam(defaultValue = "30") int days) {
+        return ResponseEntity.ok(analyticsService.memberActivity(days));
+    }
+
+    @GetMapping("/analytics/rollup")
+    public ResponseEntity<Map<String, Object>> getLastRollup() {
+        return ResponseEntity.ok(analyticsRollup.getLastRun());
+    }
+
+    // Rolls up open days now; with from, also re-rolls closed days from that date on
+    @PostMapping("/analytics/rollup")
+    public ResponseEntity<Map<String, Object>> rollup(@RequestParam(required = false)
+                                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from) {
+        try {
+            return ResponseEntity.ok(from == null ? analyticsRollup.rollup() : analyticsRollup.rollupFrom(from));
+        } catch (RuntimeException e) {
+            return ResponseEntity.internalServerError().body(Map.of("message", "Error: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getCacheStatistics() {
+        return ResponseEntity.ok(cacheStatisticsService.getStatistics());
+    }
+}
@@ -1,30 +1,131 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.BatchBorrowRequest;
+import com.example.demo.dto.BatchOperationResponse;
+import com.example.demo.dto.BatchReturnRequest;
+import com.example.demo.dto.TransactionResponse;
+import com.example.demo.model.Book;
+import com.example.demo.model.Member;
 import com.example.demo.model.Transaction;
 import com.example.demo.service.TransactionService;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
 @RequestMapping("/api/transactions")
 public class TransactionController {
+    private static final String CSV_HEADER = "id,borrowDate,dueDate,returnDate,status,fineAmount,"
+            + "bookId,bookTitle,bookIsbn,memberId,memberFirstName,memberLastName,memberEmail\r\n";
+
     @Autowired
     private TransactionService transactionService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping
-    public ResponseEntity<List<Transaction>> getAllTransactions() {
+    public ResponseEntity<List<TransactionResponse>> getAllTransactions() {
         return ResponseEntity.ok(transactionService.getAllTransactions());
     }
 
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(@RequestParam(defaultValue = "csv") String format,
+                                                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                      @RequestParam(defaultValue = "false") boolean gzip) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+            if (csv) {
+                writer.write(CSV_HEADER);
+            }
+            try {
+                transactionService.forEachTransaction(from, to, transaction -> {
+                    try {
+                        if (csv) {
+                            writeCsvRow(writer, transaction);
+                        } else {
+                            writer.write(objectMapper.writeValueAsString(new TransactionResponse(transaction)));
+                            writer.write('\n');
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+            if (target instanceof GZIPOutputStream compressed) {
+                compressed.finish();
+            }
+        };
+
+        String fileName = "transactions" + (from != null ? "-from-" + from : "") + (to != null ? "-to-" + to : "")
+                + (csv ? ".csv" : ".ndjson") + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, gzip ? "application/gzip"
+                        : csv ? "text/csv;charset=UTF-8" : BookController.APPLICATION_NDJSON_VALUE)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
+    private void writeCsvRow(Writer writer, Transaction transaction) throws IOException {
+        Book book = transaction.getBook();
+        Member member = transaction.getMember();
+        writer.write(transaction.getId() + "," + transaction.getBorrowDate() + "," + csvValue(transaction.getDueDate())
+                + "," + csvValue(transaction.getReturnDate()) + "," + transaction.getStatus()
+                + "," + csvValue(transaction.getFineAmount()) + "," + book.getId() + "," + csvValue(book.getTitle())
+                + "," + csvValue(book.getIsbn()) + "," + member.getId() + "," + csvValue(member.getFirstName())
+                + "," + csvValue(member.getLastName()) + "," + csvValue(member.getEmail()) + "\r\n");
+    }
+
+    // RFC 4180 quoting; a leading =, +, - or @ is prefixed with ' so spreadsheets don't run it as a formula
+    private static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (value instanceof String && !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Transaction> getTransactionById(@PathVariable Long id) {
+    public ResponseEntity<TransactionResponse> getTransactionById(@PathVariable Long id) {
         try {
-            Transaction transaction = transactionService.getTransactionById(id);
+            TransactionResponse transaction = transactionService.getTransactionById(id);
             return ResponseEntity.ok(transaction);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
@@ -32,32 +133,47 @@ public class TransactionController {
     }
 
     @PostMapping("/borrow")
-    public ResponseEntity<Transaction> borrowBook(@RequestParam Long bookId, @RequestParam Long memberId) {
+    public ResponseEntity<TransactionResponse> borrowBook(@RequestParam Long bookId, @RequestParam Long memberId) {
         try {
             Transaction transaction = transactionService.borrowBook(bookId, memberId);
-            return ResponseEntity.status(HttpStatus.CREATED).body(transaction);
+            return ResponseEntity.status(HttpStatus.CREATED).body(new TransactionResponse(transaction));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @PostMapping("/return/{id}")
-    public ResponseEntity<Transaction> returnBook(@PathVariable Long id) {
+    public ResponseEntity<TransactionResponse> returnBook(@PathVariable Long id) {
         try {
             Transaction transaction = transactionService.returnBook(id);
-            return ResponseEntity.ok(transaction);
+            return ResponseEntity.ok(new TransactionResponse(transaction));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    @PostMapping("/borrow/batch")
+    public ResponseEntity<BatchOperationResponse> borrowBooks(@Valid @RequestBody BatchBorrowRequest request) {
+        try {
+            BatchOperationResponse response = transactionService.borrowBooks(request.getMemberId(), request.getBookIds());
+            return ResponseEntity.status(response.getSucceeded() > 0 ? HttpStatus.CREATED : HttpStatus.OK).body(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/return/batch")
+    public ResponseEntity<BatchOperationResponse> returnBooks(@Valid @RequestBody BatchReturnRequest request) {
+        return ResponseEntity.ok(transactionService.returnBooks(request.getTransactionIds()));
+    }
+
     @GetMapping("/member/{memberId}")
-    public ResponseEntity<List<Transaction>> getTransactionsByMember(@PathVariable Long memberId) {
+    public ResponseEntity<List<TransactionResponse>> getTransactionsByMember(@PathVariable Long memberId) {
         return ResponseEntity.ok(transactionService.getTransactionsByMember(memberId));
     }
 
     @GetMapping("/member/{memberId}/active")
-    public ResponseEntity<List<Transaction>> getActiveBorrowsByMember(@PathVariable Long memberId) {
+    public ResponseEntity<List<TransactionResponse>> getActiveBorrowsByMember(@PathVariable Long memberId) {
         return ResponseEntity.ok(transactionService.getActiveBorrowsByMember(memberId));
     }
 }
@@ -0,0 +1,34 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class BatchBorrowRequest {
+    @NotNull
+    private Long memberId;
+
+    @NotEmpty
+    @Size(max = 100)
+    private List<Long> bookIds;
+
+    public BatchBorrowRequest() {
+    }
+
+    public Long getMemberId() {
+        return memberId;
+    }
+
+    public void setMemberId(Long memberId) {
+        this.memberId = memberId;
+    }
+
+    public List<Long> getBookIds() {
+        return bookIds;
+    }
+
+    public void setBookIds(List<Long> bookIds) {
+        this.bookIds = bookIds;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.dto;
+
+public class BatchItemResult {
+    private Long id;
+    private boolean success;
+    private Long transactionId;
+    private String message;
+
+    public BatchItemResult(Long id, boolean success, Long transactionId, String message) {
+        this.id = id;
+        this.success = success;
+        this.transactionId = transactionId;
+        this.message = message;
+    }
+
+    public static BatchItemResult succeeded(Long id, Long transactionId) {
+        return new BatchItemResult(id, true, transactionId, null);
+    }
+
+    public static BatchItemResult failed(Long id, String message) {
+        return new BatchItemResult(id, false, null, message);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public Long getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(Long transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+public class BatchOperationResponse {
+    private int succeeded;
+    private int failed;
+    private List<BatchItemResult> results;
+
+    public BatchOperationResponse(List<BatchItemResult> results) {
+        this.results = results;
+        this.succeeded = (int) results.stream().filter(BatchItemResult::isSuccess).count();
+        this.failed = results.size() - succeeded;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<BatchItemResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BatchItemResult> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class BatchReturnRequest {
+    @NotEmpty
+    @Size(max = 100)
+    private List<Long> transactionIds;
+
+    public BatchReturnRequest() {
+    }
+
+    public List<Long> getTransactionIds() {
+        return transactionIds;
+    }
+
+    public void setTransactionIds(List<Long> transactionIds) {
+        this.transactionIds = transactionIds;
+    }
+}
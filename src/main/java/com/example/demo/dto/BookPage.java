@@ -0,0 +1,51 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.Book;
+
+import java.util.List;
+
+public class BookPage {
+    private List<Book> books;
+    private String nextCursor;
+    private int size;
+    private boolean hasMore;
+
+    public BookPage(List<Book> books, String nextCursor, int size) {
+        this.books = books;
+        this.nextCursor = nextCursor;
+        this.size = size;
+        this.hasMore = nextCursor != null;
+    }
+
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    public void setBooks(List<Book> books) {
+        this.books = books;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.demo.dto;
+
+public class BookSuggestion {
+    private String text;
+    private String field;
+    private int bookCount;
+
+    public BookSuggestion(String text, String field, int bookCount) {
+        this.text = text;
+        this.field = field;
+        this.bookCount = bookCount;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public void setField(String field) {
+        this.field = field;
+    }
+
+    public int getBookCount() {
+        return bookCount;
+    }
+
+    public void setBookCount(int bookCount) {
+        this.bookCount = bookCount;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.Hold;
+import com.example.demo.model.HoldStatus;
+
+import java.time.LocalDateTime;
+
+public class HoldResponse {
+    private Long id;
+    private Long bookId;
+    private Long memberId;
+    private HoldStatus status;
+    private Integer position;
+    private LocalDateTime createdAt;
+    private LocalDateTime closedAt;
+    private Long transactionId;
+
+    public HoldResponse(Hold hold, Integer position) {
+        this.id = hold.getId();
+        this.bookId = hold.getBook().getId();
+        this.memberId = hold.getMember().getId();
+        this.status = hold.getStatus();
+        this.position = position;
+        this.createdAt = hold.getCreatedAt();
+        this.closedAt = hold.getClosedAt();
+        this.transactionId = hold.getTransactionId();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public Long getMemberId() {
+        return memberId;
+    }
+
+    public HoldStatus getStatus() {
+        return status;
+    }
+
+    // 1-based place in the book's queue while the hold is waiting
+    public Integer getPosition() {
+        return position;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getClosedAt() {
+        return closedAt;
+    }
+
+    public Long getTransactionId() {
+        return transactionId;
+    }
+}
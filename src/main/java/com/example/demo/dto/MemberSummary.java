@@ -0,0 +1,59 @@
+package com.example.demo.dto;
+
+import java.time.LocalDate;
+
+public class MemberSummary {
+    private Long memberId;
+    private long totalBorrows;
+    private long activeLoans;
+    private long overdueLoans;
+    private long returned;
+    private double totalFines;
+    private LocalDate nextDueDate;
+    private LocalDate asOf;
+
+    // Filled by the aggregate query in TransactionRepository.summarizeMember
+    public MemberSummary(Long memberId, Long totalBorrows, Long activeLoans, Long overdueLoans, Long returned,
+                         Double totalFines, LocalDate nextDueDate, LocalDate asOf) {
+        this.memberId = memberId;
+        this.totalBorrows = totalBorrows;
+        this.activeLoans = activeLoans;
+        this.overdueLoans = overdueLoans;
+        this.returned = returned;
+        this.totalFines = totalFines;
+        this.nextDueDate = nextDueDate;
+        this.asOf = asOf;
+    }
+
+    public Long getMemberId() {
+        return memberId;
+    }
+
+    public long getTotalBorrows() {
+        return totalBorrows;
+    }
+
+    public long getActiveLoans() {
+        return activeLoans;
+    }
+
+    public long getOverdueLoans() {
+        return overdueLoans;
+    }
+
+    public long getReturned() {
+        return returned;
+    }
+
+    public double getTotalFines() {
+        return totalFines;
+    }
+
+    public LocalDate getNextDueDate() {
+        return nextDueDate;
+    }
+
+    public LocalDate getAsOf() {
+        return asOf;
+    }
+}
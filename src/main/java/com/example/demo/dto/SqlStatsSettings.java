@@ -0,0 +1,58 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.Min;
+
+// Fields left null keep their current value
+public class SqlStatsSettings {
+    private Boolean enabled;
+
+    @Min(0)
+    private Long slowQueryMs;
+
+    @Min(1)
+    private Integer requestStatementThreshold;
+
+    private Boolean logAllStatements;
+
+    private Boolean reset;
+
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Long getSlowQueryMs() {
+        return slowQueryMs;
+    }
+
+    public void setSlowQueryMs(Long slowQueryMs) {
+        this.slowQueryMs = slowQueryMs;
+    }
+
+    public Integer getRequestStatementThreshold() {
+        return requestStatementThreshold;
+    }
+
+    public void setRequestStatementThreshold(Integer requestStatementThreshold) {
+        this.requestStatementThreshold = requestStatementThreshold;
+    }
+
+    public Boolean getLogAllStatements() {
+        return logAllStatements;
+    }
+
+    public void setLogAllStatements(Boolean logAllStatements) {
+        this.logAllStatements = logAllStatements;
+    }
+
+    public Boolean getReset() {
+        return reset;
+    }
+
+    public void setReset(Boolean reset) {
+        this.reset = reset;
+    }
+}
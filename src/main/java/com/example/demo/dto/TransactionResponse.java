@@ -0,0 +1,122 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.Book;
+import com.example.demo.model.Member;
+import com.example.demo.model.Transaction;
+import com.example.demo.model.TransactionStatus;
+
+import java.time.LocalDate;
+
+public class TransactionResponse {
+    private Long id;
+    private BookInfo book;
+    private MemberInfo member;
+    private LocalDate borrowDate;
+    private LocalDate dueDate;
+    private LocalDate returnDate;
+    private TransactionStatus status;
+    private Double fineAmount;
+
+    public static class BookInfo {
+        private Long id;
+        private String title;
+        private String author;
+        private String isbn;
+
+        public BookInfo(Book book) {
+            this.id = book.getId();
+            this.title = book.getTitle();
+            this.author = book.getAuthor();
+            this.isbn = book.getIsbn();
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getAuthor() {
+            return author;
+        }
+
+        public String getIsbn() {
+            return isbn;
+        }
+    }
+
+    public static class MemberInfo {
+        private Long id;
+        private String firstName;
+        private String lastName;
+        private String email;
+
+        public MemberInfo(Member member) {
+            this.id = member.getId();
+            this.firstName = member.getFirstName();
+            this.lastName = member.getLastName();
+            this.email = member.getEmail();
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public String getLastName() {
+            return lastName;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+    }
+
+    public TransactionResponse(Transaction transaction) {
+        this.id = transaction.getId();
+        this.book = new BookInfo(transaction.getBook());
+        this.member = new MemberInfo(transaction.getMember());
+        this.borrowDate = transaction.getBorrowDate();
+        this.dueDate = transaction.getDueDate();
+        this.returnDate = transaction.getReturnDate();
+        this.status = transaction.getStatus();
+        this.fineAmount = transaction.getFineAmount();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public BookInfo getBook() {
+        return book;
+    }
+
+    public MemberInfo getMember() {
+        return member;
+    }
+
+    public LocalDate getBorrowDate() {
+        return borrowDate;
+    }
+
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    public LocalDate getReturnDate() {
+        return returnDate;
+    }
+
+    public TransactionStatus getStatus() {
+        return status;
+    }
+
+    public Double getFineAmount() {
+        return fineAmount;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.demo.event;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public record BookBorrowed(Long bookId, Long memberId, Long transactionId, LocalDate dueDate,
+                           LocalDateTime occurredAt) implements DomainEvent {
+}
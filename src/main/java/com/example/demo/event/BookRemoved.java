@@ -0,0 +1,6 @@
+package com.example.demo.event;
+
+import java.time.LocalDateTime;
+
+public record BookRemoved(Long bookId, LocalDateTime occurredAt) implements DomainEvent {
+}
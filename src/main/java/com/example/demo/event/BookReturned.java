@@ -0,0 +1,7 @@
+package com.example.demo.event;
+
+import java.time.LocalDateTime;
+
+public record BookReturned(Long bookId, Long memberId, Long transactionId, Double fineAmount,
+                           LocalDateTime occurredAt) implements DomainEvent {
+}
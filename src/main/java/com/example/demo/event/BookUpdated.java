@@ -0,0 +1,7 @@
+package com.example.demo.event;
+
+import java.time.LocalDateTime;
+
+public record BookUpdated(Long bookId, Integer totalCopies, Integer availableCopies,
+                          LocalDateTime occurredAt) implements DomainEvent {
+}
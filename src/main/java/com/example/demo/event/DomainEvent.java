@@ -0,0 +1,15 @@
+package com.example.demo.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Something that happened to a book, recorded in the outbox by the transaction that caused it and delivered
+ * afterwards to {@code @EventListener} methods by {@link com.example.demo.service.OutboxDispatcher}.
+ * Delivery is at least once, so listeners must tolerate seeing an event twice.
+ */
+public sealed interface DomainEvent permits BookBorrowed, BookReturned, BookUpdated, BookRemoved {
+    // Events of one book are delivered one at a time, in the order they were committed
+    Long bookId();
+
+    LocalDateTime occurredAt();
+}
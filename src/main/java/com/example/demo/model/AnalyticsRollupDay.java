@@ -0,0 +1,37 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A day the analytics tables cover. Closed days were rolled up after they ended and are not revisited.
+ */
+@Entity
+@Table(name = "analytics_rollup_days")
+@Immutable
+public class AnalyticsRollupDay {
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate statDate;
+
+    @Column(nullable = false)
+    private boolean closed;
+
+    @Column(nullable = false)
+    private LocalDateTime rolledUpAt;
+
+    public LocalDate getStatDate() {
+        return statDate;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public LocalDateTime getRolledUpAt() {
+        return rolledUpAt;
+    }
+}
@@ -3,13 +3,20 @@ package com.example.demo.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDate;
 
 @Entity
 @Table(name = "books")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Book {
+    // Sequence ids (pooled in blocks of 50) let Hibernate batch INSERTs, which bulk imports depend on
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+    @SequenceGenerator(name = "books_seq", sequenceName = "books_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
@@ -35,6 +42,11 @@ public class Book {
     private LocalDate publicationDate;
     private String category;
 
+    // Numbers this book's outbox events; only DomainEventPublisher writes it, under the row lock
+    @ColumnDefault("0")
+    @Column(name = "event_version", nullable = false, insertable = false, updatable = false)
+    private long eventVersion;
+
     public Book() {
     }
 
@@ -0,0 +1,77 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * One book's circulation on one day, written by AnalyticsRollup. loanedCopies is the number of copies
+ * out at the end of the day; totalCopies is the book's stock when the day was rolled up.
+ */
+@Entity
+@Table(name = "daily_book_stats", indexes = @Index(name = "idx_daily_book_stats_book", columnList = "book_id, stat_date"))
+@IdClass(DailyBookStats.Key.class)
+@Immutable
+public class DailyBookStats {
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate statDate;
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(nullable = false)
+    private int borrows;
+
+    @Column(nullable = false)
+    private int returned;
+
+    @Column(nullable = false)
+    private int loanedCopies;
+
+    @Column(nullable = false)
+    private int totalCopies;
+
+    public static class Key implements Serializable {
+        private LocalDate statDate;
+        private Long bookId;
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(statDate, key.statDate) && Objects.equals(bookId, key.bookId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(statDate, bookId);
+        }
+    }
+
+    public LocalDate getStatDate() {
+        return statDate;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public int getBorrows() {
+        return borrows;
+    }
+
+    public int getReturned() {
+        return returned;
+    }
+
+    public int getLoanedCopies() {
+        return loanedCopies;
+    }
+
+    public int getTotalCopies() {
+        return totalCopies;
+    }
+}
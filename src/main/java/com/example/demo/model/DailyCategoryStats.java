@@ -0,0 +1,54 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Borrows per book category per day, written by AnalyticsRollup.
+ */
+@Entity
+@Table(name = "daily_category_stats")
+@IdClass(DailyCategoryStats.Key.class)
+@Immutable
+public class DailyCategoryStats {
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate statDate;
+
+    @Id
+    private String category;
+
+    @Column(nullable = false)
+    private int borrows;
+
+    public static class Key implements Serializable {
+        private LocalDate statDate;
+        private String category;
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(statDate, key.statDate) && Objects.equals(category, key.category);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(statDate, category);
+        }
+    }
+
+    public LocalDate getStatDate() {
+        return statDate;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public int getBorrows() {
+        return borrows;
+    }
+}
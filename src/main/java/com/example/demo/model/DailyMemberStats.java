@@ -0,0 +1,62 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * One member's borrows and returns on one day, written by AnalyticsRollup.
+ */
+@Entity
+@Table(name = "daily_member_stats")
+@IdClass(DailyMemberStats.Key.class)
+@Immutable
+public class DailyMemberStats {
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate statDate;
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    @Column(nullable = false)
+    private int borrows;
+
+    @Column(nullable = false)
+    private int returned;
+
+    public static class Key implements Serializable {
+        private LocalDate statDate;
+        private Long memberId;
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(statDate, key.statDate) && Objects.equals(memberId, key.memberId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(statDate, memberId);
+        }
+    }
+
+    public LocalDate getStatDate() {
+        return statDate;
+    }
+
+    public Long getMemberId() {
+        return memberId;
+    }
+
+    public int getBorrows() {
+        return borrows;
+    }
+
+    public int getReturned() {
+        return returned;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDateTime;
+
+/**
+ * A member waiting for a copy of a book. Holds are served first come, first served: a returned copy
+ * goes to the oldest waiting hold as a new loan (transactionId) instead of back on the shelf.
+ */
+@Entity
+@Table(name = "holds", indexes = @Index(name = "idx_holds_book_status", columnList = "book_id, status, id"))
+public class Hold {
+    // Queue order: one sequence value per hold, since blocks cached per instance would interleave
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "holds_seq")
+    @SequenceGenerator(name = "holds_seq", sequenceName = "holds_seq", allocationSize = 1)
+    private Long id;
+
+    @NotNull
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", nullable = false)
+    private Book book;
+
+    @NotNull
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "member_id", nullable = false)
+    private Member member;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private HoldStatus status;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime closedAt;
+
+    @Column(name = "transaction_id")
+    private Long transactionId;
+
+    public Hold() {
+    }
+
+    public Hold(Book book, Member member) {
+        this.book = book;
+        this.member = member;
+        this.status = HoldStatus.WAITING;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Book getBook() {
+        return book;
+    }
+
+    public void setBook(Book book) {
+        this.book = book;
+    }
+
+    public Member getMember() {
+        return member;
+    }
+
+    public void setMember(Member member) {
+        this.member = member;
+    }
+
+    public HoldStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(HoldStatus status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getClosedAt() {
+        return closedAt;
+    }
+
+    public void setClosedAt(LocalDateTime closedAt) {
+        this.closedAt = closedAt;
+    }
+
+    public Long getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(Long transactionId) {
+        this.transactionId = transactionId;
+    }
+}
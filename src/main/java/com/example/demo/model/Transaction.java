@@ -7,8 +7,10 @@ import java.time.LocalDate;
 @Entity
 @Table(name = "transactions")
 public class Transaction {
+    // Sequence ids (pooled in blocks of 50) let Hibernate batch INSERTs, which IDENTITY rules out
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -0,0 +1,339 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Book;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the Book second-level cache in step with the database across instances.
+ * Local entries are evicted straight away and again once the transaction completes, so a concurrent
+ * reader can't re-cache the pre-commit row. On PostgreSQL every change is also sent with NOTIFY
+ * (delivered only on commit) and the other instances evict the same book when they receive it.
+ * With a read replica, a read-only transaction can load the old row after that and cache it again, so
+ * each change is evicted once more when the replica has had app.datasource.replica.max-lag-ms to catch up.
+ * New holds travel on the same channel, so each instance knows which books may have a hold queue.
+ * Change listeners hear about every committed change: this instance's own once its transaction commits,
+ * the others' as their notifications arrive.
+ */
+@Component
+public class BookCacheInvalidator {
+    private static final Logger logger = LoggerFactory.getLogger(BookCacheInvalidator.class);
+
+    private static final String CHANNEL = "book_changes";
+
+    // NOTIFY payloads must stay under 8000 bytes, instance id and kind included
+    private static final int MAX_IDS_PAYLOAD = 7800;
+
+    // Lets an instance skip the notifications it sent itself
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Value("${spring.datasource.url}")
+    private String datasourceUrl;
+
+    @Value("${spring.datasource.username:}")
+    private String datasourceUsername;
+
+    @Value("${spring.datasource.password:}")
+    private String datasourcePassword;
+
+    @Value("${app.datasource.replica.url:}")
+    private String replicaUrl;
+
+    @Value("${app.datasource.replica.max-lag-ms:1000}")
+    private long replicaMaxLagMs;
+
+    private ScheduledExecutorService replicaEvictor;
+
+    private volatile boolean running;
+    private Thread listener;
+
+    private final List<Consumer<Long>> changeListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<Long>> remoteHoldListeners = new CopyOnWriteArrayList<>();
+    private final List<Runnable> reconnectListeners = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    public void init() {
+        if (!replicaUrl.isEmpty()) {
+            replicaEvictor = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "book-cache-replica-eviction");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Called with the book id whenever a change to a book commits, on this instance or another.
+     */
+    public void onChange(Consumer<Long> changeListener) {
+        changeListeners.add(changeListener);
+    }
+
+    /**
+     * Called with the book id whenever another instance commits a new hold on it.
+     */
+    public void onRemoteHold(Consumer<Long> holdListener) {
+        remoteHoldListeners.add(holdListener);
+    }
+
+    /**
+     * Called after the listener reconnects: notifications sent while it was disconnected are lost.
+     */
+    public void onReconnect(Runnable reconnectListener) {
+        reconnectListeners.add(reconnectListener);
+    }
+
+    /**
+     * Whether other instances hear about changes; without it each instance only knows its own.
+     */
+    public boolean notifiesOtherInstances() {
+        return isPostgres();
+    }
+
+    /**
+     * A hold was placed on the book. Nothing cached changes; the other instances only learn the book has a queue.
+     */
+    public void holdPlaced(Long bookId) {
+        notifyOthers("hold", String.valueOf(bookId));
+    }
+
+    /**
+     * Only the copy counters changed: the cached entity is stale, cached query results are not.
+     */
+    public void copiesChanged(Long bookId) {
+        evictLocally(bookId, false);
+        announceLocally(List.of(bookId));
+        notifyOthers("copies", String.valueOf(bookId));
+    }
+
+    /**
+     * Any other change to a book may also move it between cached query results.
+     */
+    public void bookChanged(Long bookId) {
+        evictLocally(bookId, true);
+        announceLocally(List.of(bookId));
+        notifyOthers("book", String.valueOf(bookId));
+    }
+
+    /**
+     * Books were added in bulk: none of them can be cached yet, but cached query results may now be incomplete.
+     * Their ids go out in as few notifications as fit the NOTIFY payload limit.
+     */
+    public void booksAdded(List<Long> bookIds) {
+        evictLocally(null, true);
+        announceLocally(bookIds);
+        StringBuilder ids = new StringBuilder();
+        for (Long bookId : bookIds) {
+            if (ids.length() > MAX_IDS_PAYLOAD) {
+                notifyOthers("added", ids.toString());
+                ids.setLength(0);
+            }
+            ids.append(ids.isEmpty() ? "" : ",").append(bookId);
+        }
+        if (!ids.isEmpty()) {
+            notifyOthers("added", ids.toString());
+        }
+    }
+
+    // Listeners hear only about changes that commit
+    private void announceLocally(List<Long> bookIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    announce(bookIds);
+                }
+            });
+        } else {
+            announce(bookIds);
+        }
+    }
+
+    private void announce(List<Long> bookIds) {
+        for (Long bookId : bookIds) {
+            changeListeners.forEach(changeListener -> changeListener.accept(bookId));
+        }
+    }
+
+    private void evictLocally(Long bookId, boolean queries) {
+        evict(bookId, queries);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    committed(bookId, queries);
+                }
+            });
+        } else {
+            committed(bookId, queries);
+        }
+    }
+
+    // Only now can a reader see the change, so only now may the ETags move on
+    private void committed(Long bookId, boolean queries) {
+        evict(bookId, queries);
+        versionChanged(bookId);
+        if (replicaEvictor != null) {
+            replicaEvictor.schedule(() -> {
+                evict(bookId, queries);
+                versionChanged(bookId);
+            }, replicaMaxLagMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void versionChanged(Long bookId) {
+        if (bookId == null) {
+            catalogVersion.catalogChanged();
+        } else {
+            catalogVersion.bookChanged(bookId);
+        }
+    }
+
+    private void evict(Long bookId, boolean queries) {
+        if (bookId != null) {
+            entityManagerFactory.getCache().evict(Book.class, bookId);
+        }
+        if (queries) {
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegion("query.books.category");
+        }
+    }
+
+    private boolean isPostgres() {
+        return datasourceUrl.startsWith("jdbc:postgresql:");
+    }
+
+    private void notifyOthers(String kind, String bookIds) {
+        if (!isPostgres()) {
+            return;
+        }
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class,
+                CHANNEL, instanceId + ":" + kind + ":" + bookIds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startListening() {
+        if (!isPostgres()) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "book-cache-invalidation");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stopListening() {
+        running = false;
+        if (replicaEvictor != null) {
+            replicaEvictor.shutdownNow();
+        }
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    private void listen() {
+        long backoff = 1000;
+        boolean reconnecting = false;
+        while (running) {
+            // A dedicated connection, so LISTEN doesn't hold one of the pool's connections forever
+            try (Connection connection = DriverManager.getConnection(datasourceUrl, datasourceUsername, datasourcePassword)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (reconnecting) {
+                    // Notifications sent while disconnected are lost, so nothing cached can be trusted
+                    entityManagerFactory.getCache().evict(Book.class);
+                    entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegion("query.books.category");
+                    catalogVersion.everythingChanged();
+                    reconnectListeners.forEach(Runnable::run);
+                    logger.info("Book cache invalidation listener reconnected; Book region cleared");
+                }
+                backoff = 1000;
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(5000);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            handle(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Book cache invalidation listener lost its connection: {}", e.getMessage());
+                reconnecting = true;
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, 30000);
+            }
+        }
+    }
+
+    private void handle(String payload) {
+        String[] parts = payload.split(":", 3);
+        if (parts.length != 3 || parts[0].equals(instanceId)) {
+            return;
+        }
+        try {
+            if ("added".equals(parts[1])) {
+                committed(null, true);
+                List<Long> bookIds = new ArrayList<>();
+                for (String bookId : parts[2].split(",")) {
+                    bookIds.add(Long.valueOf(bookId));
+                }
+                announce(bookIds);
+            } else if ("hold".equals(parts[1])) {
+                Long bookId = Long.valueOf(parts[2]);
+                remoteHoldListeners.forEach(holdListener -> holdListener.accept(bookId));
+            } else {
+                Long bookId = Long.valueOf(parts[2]);
+                committed(bookId, "book".equals(parts[1]));
+                announce(List.of(bookId));
+            }
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring malformed book cache notification: {}", payload);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.repository;
+
+import java.util.Map;
+
+public interface BookInventoryRepository {
+    int decrementAvailableCopies(Long id);
+
+    int incrementAvailableCopies(Long id);
+
+    void addAvailableCopies(Map<Long, Integer> copiesByBook);
+}
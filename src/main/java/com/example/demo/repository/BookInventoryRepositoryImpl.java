@@ -0,0 +1,50 @@
+package com.example.demo.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+
+/**
+ * Copy counters are updated with plain SQL rather than JPQL bulk updates: Hibernate drops the whole
+ * Book cache region on every bulk update, so only the touched books are evicted here instead.
+ */
+public class BookInventoryRepositoryImpl implements BookInventoryRepository {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookCacheInvalidator cacheInvalidator;
+
+    // Single conditional UPDATE, so concurrent borrows can never take the count below zero
+    @Override
+    public int decrementAvailableCopies(Long id) {
+        int updated = jdbcTemplate.update(
+                "UPDATE books SET available_copies = available_copies - 1 WHERE id = ? AND available_copies > 0", id);
+        if (updated > 0) {
+            cacheInvalidator.copiesChanged(id);
+        }
+        return updated;
+    }
+
+    @Override
+    public int incrementAvailableCopies(Long id) {
+        int updated = jdbcTemplate.update("UPDATE books SET available_copies = available_copies + 1 WHERE id = ?", id);
+        if (updated > 0) {
+            cacheInvalidator.copiesChanged(id);
+        }
+        return updated;
+    }
+
+    @Override
+    public void addAvailableCopies(Map<Long, Integer> copiesByBook) {
+        if (copiesByBook.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("UPDATE books SET available_copies = available_copies + ? WHERE id = ?",
+                copiesByBook.entrySet().stream()
+                        .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                        .toList());
+        copiesByBook.keySet().forEach(cacheInvalidator::copiesChanged);
+    }
+}
@@ -1,21 +1,73 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.Book;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookInventoryRepository {
+    // Must stay identical to the expression of the idx_books_search GIN index, or PostgreSQL won't use it
+    String SEARCH_VECTOR = "to_tsvector('simple', coalesce(title, '') || ' ' || coalesce(author, '') || ' ' || replace(coalesce(isbn, ''), '-', ''))";
+
     Optional<Book> findByIsbn(String isbn);
+
+    // findByIsbn for a whole import chunk in one round trip
+    @Query("SELECT b.isbn FROM Book b WHERE b.isbn IN :isbns")
+    Set<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
     List<Book> findByTitleContainingIgnoreCase(String title);
     List<Book> findByAuthorContainingIgnoreCase(String author);
+
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"), @QueryHint(name = HINT_CACHE_REGION, value = "query.books.category")})
     List<Book> findByCategory(String category);
-    
-    @Query("SELECT b FROM Book b WHERE b.title LIKE %:keyword% OR b.author LIKE %:keyword% OR b.isbn LIKE %:keyword%")
-    List<Book> searchBooks(@Param("keyword") String keyword);
-}
 
+    @Query(value = "SELECT * FROM books WHERE " + SEARCH_VECTOR + " @@ to_tsquery('simple', :query) " +
+            "ORDER BY ts_rank(" + SEARCH_VECTOR + ", to_tsquery('simple', :query)) DESC, id ASC " +
+            "LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Book> fullTextSearch(@Param("query") String query, @Param("limit") int limit, @Param("offset") long offset);
+
+    @Query("SELECT b FROM Book b WHERE LOWER(b.title) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
+            "OR LOWER(b.author) LIKE LOWER(CONCAT('%', :keyword, '%')) OR b.isbn LIKE CONCAT('%', :keyword, '%') ORDER BY b.id")
+    List<Book> searchBooksIgnoreCase(@Param("keyword") String keyword, Pageable pageable);
+
+    // Keyset pages: the cursor is the sort key of the last row already sent, id breaks ties
+    @Query("SELECT b FROM Book b WHERE b.id > :afterId ORDER BY b.id ASC")
+    List<Book> findPageByIdAsc(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT b FROM Book b WHERE b.id < :beforeId ORDER BY b.id DESC")
+    List<Book> findPageByIdDesc(@Param("beforeId") Long beforeId, Limit limit);
+
+    List<Book> findAllByOrderByTitleAscIdAsc(Limit limit);
+
+    List<Book> findAllByOrderByTitleDescIdDesc(Limit limit);
+
+    @Query("SELECT b FROM Book b WHERE b.title > :title OR (b.title = :title AND b.id > :id) ORDER BY b.title ASC, b.id ASC")
+    List<Book> findPageByTitleAsc(@Param("title") String title, @Param("id") Long id, Limit limit);
+
+    @Query("SELECT b FROM Book b WHERE b.title < :title OR (b.title = :title AND b.id < :id) ORDER BY b.title DESC, b.id DESC")
+    List<Book> findPageByTitleDesc(@Param("title") String title, @Param("id") Long id, Limit limit);
+
+    // Row lock until commit, the same one a return takes when it publishes its event
+    @Query(value = "SELECT id FROM books WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("id") Long id);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT b FROM Book b ORDER BY b.id ASC")
+    Stream<Book> streamAllBooks();
+}
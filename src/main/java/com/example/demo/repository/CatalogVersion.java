@@ -0,0 +1,50 @@
+package com.example.demo.repository;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters behind the catalog ETags, moved by {@link BookCacheInvalidator} once a change has
+ * committed (here or, via NOTIFY, on another instance). Every change to a book moves the catalog version
+ * and stamps the book with it, so an If-None-Match can be answered from memory alone. Tags carry a random
+ * instance id: counters restart with the process and differ between instances, so their tags never match.
+ */
+@Component
+public class CatalogVersion {
+    private final String instanceId = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+
+    private final AtomicLong version = new AtomicLong();
+
+    // Only books changed since start-up have an entry; the others are at the floor
+    private final Map<Long, Long> bookVersions = new ConcurrentHashMap<>();
+    private volatile long floor;
+
+    /**
+     * Tag for anything computed from the whole catalog: lists, searches, categories.
+     */
+    public String catalogTag() {
+        return "\"" + instanceId + "-" + version.get() + "\"";
+    }
+
+    public String bookTag(Long bookId) {
+        long bookVersion = Math.max(bookVersions.getOrDefault(bookId, 0L), floor);
+        return "\"" + instanceId + "-" + bookId + "-" + bookVersion + "\"";
+    }
+
+    void bookChanged(Long bookId) {
+        bookVersions.merge(bookId, version.incrementAndGet(), Math::max);
+    }
+
+    void catalogChanged() {
+        version.incrementAndGet();
+    }
+
+    // Changes may have been missed: every tag handed out so far is invalid
+    void everythingChanged() {
+        floor = version.incrementAndGet();
+    }
+}
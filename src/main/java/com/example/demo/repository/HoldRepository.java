@@ -0,0 +1,48 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Hold;
+import com.example.demo.model.HoldStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface HoldRepository extends JpaRepository<Hold, Long> {
+    // Queue order, served by idx_holds_book_status
+    @EntityGraph(attributePaths = {"member"})
+    List<Hold> findByBookIdAndStatusOrderByIdAsc(Long bookId, HoldStatus status);
+
+    @EntityGraph(attributePaths = {"book", "member"})
+    Optional<Hold> findWithDetailsById(Long id);
+
+    boolean existsByBookIdAndMemberIdAndStatus(Long bookId, Long memberId, HoldStatus status);
+
+    // Probes idx_holds_book_status for the first matching row
+    boolean existsByBookIdAndStatus(Long bookId, HoldStatus status);
+
+    // A waiting hold's position in its queue, counted on idx_holds_book_status
+    long countByBookIdAndStatusAndIdLessThanEqual(Long bookId, HoldStatus status, Long id);
+
+    @Query("SELECT DISTINCT h.book.id FROM Hold h WHERE h.status = 'WAITING'")
+    List<Long> findBookIdsWithWaitingHolds();
+
+    // Locks the oldest waiting hold until commit; one locked by a concurrent claim or cancellation is
+    // passed over rather than waited for
+    @Query(value = "SELECT id FROM holds WHERE book_id = :bookId AND status = 'WAITING' " +
+            "ORDER BY id LIMIT 1 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<Long> claimOldestWaiting(@Param("bookId") Long bookId);
+
+    // Only one of two concurrent claims or cancellations of the same hold gets a row back
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Hold h SET h.status = :status, h.closedAt = :closedAt, h.transactionId = :transactionId " +
+            "WHERE h.id = :id AND h.status = 'WAITING'")
+    int close(@Param("id") Long id, @Param("status") HoldStatus status, @Param("closedAt") LocalDateTime closedAt,
+              @Param("transactionId") Long transactionId);
+}
@@ -1,24 +1,76 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.MemberSummary;
 import com.example.demo.model.Transaction;
 import com.example.demo.model.TransactionStatus;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+    // Lists that are serialized fetch book and member in the same query instead of one SELECT per row
+    @Override
+    @EntityGraph(attributePaths = {"book", "member"})
+    List<Transaction> findAll();
+
+    @EntityGraph(attributePaths = {"book", "member"})
+    Optional<Transaction> findWithDetailsById(Long id);
+
+    @EntityGraph(attributePaths = {"book", "member"})
     List<Transaction> findByMemberId(Long memberId);
+
     List<Transaction> findByBookId(Long bookId);
     List<Transaction> findByStatus(TransactionStatus status);
     
+    @EntityGraph(attributePaths = {"book", "member"})
     @Query("SELECT t FROM Transaction t WHERE t.status = :status AND t.dueDate < :currentDate")
     List<Transaction> findOverdueTransactions(@Param("status") TransactionStatus status, @Param("currentDate") LocalDate currentDate);
     
+    @EntityGraph(attributePaths = {"book", "member"})
     @Query("SELECT t FROM Transaction t WHERE t.member.id = :memberId AND t.status = 'BORROWED'")
     List<Transaction> findActiveBorrowsByMember(@Param("memberId") Long memberId);
+
+    @EntityGraph(attributePaths = {"book", "member"})
+    @Query("SELECT t FROM Transaction t WHERE t.status = 'BORROWED' AND t.dueDate >= :from AND t.dueDate < :to")
+    List<Transaction> findBorrowedDueBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Forward-only cursor for exports; served in order by idx_transactions_borrow_date_id, so nothing is sorted up front
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.book JOIN FETCH t.member " +
+            "WHERE t.borrowDate >= :from AND t.borrowDate <= :to ORDER BY t.borrowDate ASC, t.id ASC")
+    Stream<Transaction> streamByBorrowDateBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // One row per existing member, none for an unknown id; served by idx_transactions_member_status
+    @Query("SELECT new com.example.demo.dto.MemberSummary(m.id, COUNT(t), " +
+            "COALESCE(SUM(CASE WHEN t.status <> 'RETURNED' THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN t.status = 'OVERDUE' OR (t.status = 'BORROWED' AND t.dueDate < :today) THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN t.status = 'RETURNED' THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(t.fineAmount), 0.0), " +
+            "MIN(CASE WHEN t.status <> 'RETURNED' THEN t.dueDate END), " +
+            ":today) " +
+            "FROM Member m LEFT JOIN Transaction t ON t.member.id = m.id WHERE m.id = :memberId GROUP BY m.id")
+    Optional<MemberSummary> summarizeMember(@Param("memberId") Long memberId, @Param("today") LocalDate today);
+
+    @Query("SELECT t.id FROM Transaction t WHERE t.id IN :ids AND t.status <> 'BORROWED'")
+    List<Long> findClosedIds(@Param("ids") List<Long> ids);
+
+    // Only the first of two concurrent returns of the same loan gets a row back
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Transaction t SET t.status = 'RETURNED', t.returnDate = :returnDate, t.fineAmount = :fineAmount " +
+            "WHERE t.id = :id AND t.status <> 'RETURNED'")
+    int markReturned(@Param("id") Long id, @Param("returnDate") LocalDate returnDate, @Param("fineAmount") Double fineAmount);
 }
 
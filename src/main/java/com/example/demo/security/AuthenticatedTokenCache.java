@@ -0,0 +1,84 @@
+package com.example.demo.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the principal of JWTs that already passed validation, so repeat requests skip
+ * signature checks and the user/role lookup. Entries never outlive the token itself, and every hit is
+ * checked against the denylist: a request that validated the token just before a logout can still put it
+ * back after the logout evicted it.
+ */
+@Component
+public class AuthenticatedTokenCache {
+    @Value("${jwt.cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Value("${jwt.cache.max-size:10000}")
+    private long maxSize;
+
+    @Autowired
+    private TokenDenylist tokenDenylist;
+
+    private Cache<String, CachedToken> cache;
+
+    private record CachedToken(UserPrincipal principal, String jti, long expiresAtMs) {
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, CachedToken>() {
+                    @Override
+                    public long expireAfterCreate(String token, CachedToken value, long currentTime) {
+                        long remainingMs = Math.min(ttlMs, value.expiresAtMs() - System.currentTimeMillis());
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMs, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, CachedToken value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(token, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, CachedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public UserPrincipal get(String token) {
+        CachedToken cached = cache.getIfPresent(token);
+        if (cached == null) {
+            return null;
+        }
+        if (tokenDenylist.isRevoked(cached.jti())) {
+            cache.invalidate(token);
+            return null;
+        }
+        return cached.principal();
+    }
+
+    public void put(String token, UserPrincipal principal, String jti, Date expiration) {
+        cache.put(token, new CachedToken(principal, jti, expiration.getTime()));
+    }
+
+    // Call whenever a user's roles or credentials change so stale authorities are not served
+    public void evictUser(String username) {
+        cache.asMap().values().removeIf(cached -> cached.principal().getUsername().equals(username));
+    }
+
+    public void evictToken(String token) {
+        cache.invalidate(token);
+    }
+}
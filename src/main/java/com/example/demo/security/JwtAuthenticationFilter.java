@@ -1,5 +1,8 @@
 package com.example.demo.security;
 
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,12 +12,14 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
@@ -23,18 +28,40 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private AuthenticatedTokenCache tokenCache;
+
+    @Autowired
+    private TokenDenylist tokenDenylist;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
+        long start = System.nanoTime();
+        String result = "anonymous";
         try {
             String jwt = parseJwt(request);
             if (jwt != null) {
-                if (jwtUtils.validateJwtToken(jwt)) {
-                    String username = jwtUtils.getUserNameFromJwtToken(jwt);
+                UserPrincipal userDetails = tokenCache.get(jwt);
+                result = userDetails != null ? "cached" : "rejected";
+                if (userDetails == null) {
+                    Claims claims = jwtUtils.parseValidClaims(jwt);
+                    // Refresh tokens only work at /api/auth/refresh; the cache checks the denylist again on every hit
+                    if (claims != null && !jwtUtils.isRefreshToken(claims) && !tokenDenylist.isRevoked(claims.getId())) {
+                        userDetails = (UserPrincipal) userDetailsService.loadUserByUsername(claims.getSubject());
+                        tokenCache.put(jwt, userDetails, claims.getId(), claims.getExpiration());
+                        result = "validated";
+                    }
+                }
 
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                if (userDetails != null) {
                     UsernamePasswordAuthenticationToken authentication =
                             new UsernamePasswordAuthenticationToken(userDetails,
                                     null,
@@ -42,18 +69,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                     SecurityContextHolder.getContext().setAuthentication(authentication);
-                    logger.debug("Successfully authenticated user: {} for URI: {}", username, request.getRequestURI());
+                    logger.debug("Successfully authenticated user: {} for URI: {}", userDetails.getUsername(), request.getRequestURI());
                 } else {
                     logger.warn("Invalid JWT token provided for URI: {}", request.getRequestURI());
                 }
             }
         } catch (Exception e) {
             logger.error("Cannot set user authentication: {}", e.getMessage());
+            result = "error";
         }
+        timer(result).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
         filterChain.doFilter(request, response);
     }
 
+    private Timer timer(String result) {
+        return timers.computeIfAbsent(result, r -> Timer.builder("security.jwt.filter")
+                .description("Time spent authenticating the bearer token of a request")
+                .tag("result", r)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
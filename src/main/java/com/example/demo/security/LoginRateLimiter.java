@@ -0,0 +1,87 @@
+package com.example.demo.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * In-memory token buckets for sign-in attempts, one per username and one per client IP.
+ * A bucket that has been idle long enough to refill completely is simply dropped.
+ */
+@Component
+public class LoginRateLimiter {
+    @Value("${auth.rate-limit.user.capacity:5}")
+    private int userCapacity;
+
+    @Value("${auth.rate-limit.user.per-minute:5}")
+    private int userPerMinute;
+
+    @Value("${auth.rate-limit.ip.capacity:20}")
+    private int ipCapacity;
+
+    @Value("${auth.rate-limit.ip.per-minute:30}")
+    private int ipPerMinute;
+
+    @Value("${auth.rate-limit.max-tracked:100000}")
+    private long maxTracked;
+
+    private Cache<String, TokenBucket> userBuckets;
+    private Cache<String, TokenBucket> ipBuckets;
+
+    private static final class TokenBucket {
+        private final int capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(int capacity, int perMinute) {
+            this.capacity = capacity;
+            this.tokensPerNano = perMinute / (double) Duration.ofMinutes(1).toNanos();
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        synchronized boolean tryConsume() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        userBuckets = newBucketCache(userCapacity, userPerMinute);
+        ipBuckets = newBucketCache(ipCapacity, ipPerMinute);
+    }
+
+    private Cache<String, TokenBucket> newBucketCache(int capacity, int perMinute) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxTracked)
+                .expireAfterAccess(Duration.ofMillis(Math.max(1, 60_000L * capacity / perMinute)))
+                .build();
+    }
+
+    public boolean tryAcquire(String username, String clientIp) {
+        TokenBucket ipBucket = ipBuckets.get(clientIp, ip -> new TokenBucket(ipCapacity, ipPerMinute));
+        if (!ipBucket.tryConsume()) {
+            return false;
+        }
+        String user = username == null ? "" : username.trim().toLowerCase(Locale.ROOT);
+        return userBuckets.get(user, u -> new TokenBucket(userCapacity, userPerMinute)).tryConsume();
+    }
+
+    // Time until the slower of the two buckets regains a token
+    public long getRetryAfterSeconds() {
+        return (long) Math.ceil(60.0 / Math.min(userPerMinute, ipPerMinute));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import com.example.demo.config.SqlStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Small fixed pool that runs BCrypt work off the request threads. The queue is bounded and a full
+ * queue rejects immediately, so a login storm gets 503s instead of tying up every request thread.
+ */
+@Component
+public class PasswordHashingExecutor {
+    @Value("${auth.hashing.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int threads;
+
+    @Value("${auth.hashing.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Autowired
+    private SqlStatistics sqlStatistics;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * @throws RejectedExecutionException when the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        // The user lookup during authentication is counted against the sign-in request
+        return CompletableFuture.supplyAsync(task, command -> executor.execute(sqlStatistics.propagate(command)));
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
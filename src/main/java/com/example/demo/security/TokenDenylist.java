@@ -0,0 +1,60 @@
+package com.example.demo.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ids (jti) of tokens revoked before their natural expiry. Each entry is dropped once the token it
+ * blocks would have expired anyway, so the list only ever holds tokens that are still live.
+ */
+@Component
+public class TokenDenylist {
+    @Value("${jwt.denylist.max-size:1000000}")
+    private long maxSize;
+
+    private Cache<String, Long> revoked;
+
+    @PostConstruct
+    public void init() {
+        revoked = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Long>() {
+                    @Override
+                    public long expireAfterCreate(String jti, Long expiresAtMs, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(expiresAtMs - System.currentTimeMillis(), 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String jti, Long expiresAtMs, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String jti, Long expiresAtMs, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * @return false if the token was already revoked, which lets exactly one caller win a rotation
+     */
+    public boolean revoke(String jti, Date expiration) {
+        if (jti == null || expiration == null) {
+            return false;
+        }
+        return revoked.asMap().putIfAbsent(jti, expiration.getTime()) == null;
+    }
+
+    public boolean isRevoked(String jti) {
+        return jti != null && revoked.getIfPresent(jti) != null;
+    }
+}
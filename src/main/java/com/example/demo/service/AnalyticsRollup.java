@@ -0,0 +1,208 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rolls transactions up into the daily analytics tables. Each run covers every day that isn't closed yet,
+ * from the first day after the last closed one through today, so a normal run only touches today (and
+ * yesterday once, to close it) however much history there is.
+ * A day's borrows and returns depend only on that day's transactions, so days are rolled up in parallel.
+ * Copies on loan at the end of a day are the previous day's plus that day's borrows minus its returns,
+ * which is carried forward afterwards, one day at a time in date order.
+ */
+@Component
+public class AnalyticsRollup {
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsRollup.class);
+
+    // First key of the PostgreSQL advisory lock that serializes work on one day across instances
+    private static final int ADVISORY_LOCK_CLASS = 20_001;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CirculationAnalyticsService analyticsService;
+
+    @Value("${analytics.rollup.threads:4}")
+    private int threads;
+
+    @Value("${spring.datasource.url}")
+    private String datasourceUrl;
+
+    private ExecutorService executor;
+    private volatile Map<String, Object> lastRun = Map.of();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger count = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "analytics-rollup-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Catch up on whatever happened while no instance was running
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUpInBackground() {
+        Thread catchUp = new Thread(this::scheduledRollup, "analytics-catch-up");
+        catchUp.setDaemon(true);
+        catchUp.start();
+    }
+
+    @Scheduled(cron = "${analytics.rollup.cron:0 */15 * * * *}")
+    public void scheduledRollup() {
+        try {
+            rollup();
+        } catch (RuntimeException e) {
+            logger.error("Analytics rollup failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Marks every day from the given date on as open again, e.g. after transactions were corrected, and rolls them up.
+     */
+    public synchronized Map<String, Object> rollupFrom(LocalDate from) {
+        jdbcTemplate.update("DELETE FROM analytics_rollup_days WHERE stat_date >= ?", from);
+        return rollup();
+    }
+
+    public synchronized Map<String, Object> rollup() {
+        long start = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+        LocalDate first = firstOpenDay();
+        if (first == null || first.isAfter(today)) {
+            return lastRun;
+        }
+        List<LocalDate> days = first.datesUntil(today.plusDays(1)).toList();
+
+        List<Future<?>> partitions = new ArrayList<>(days.size());
+        for (LocalDate day : days) {
+            partitions.add(executor.submit(() -> rollupDay(day)));
+        }
+        try {
+            for (Future<?> partition : partitions) {
+                partition.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            partitions.forEach(partition -> partition.cancel(true));
+            throw new RuntimeException("Analytics rollup interrupted");
+        } catch (ExecutionException e) {
+            partitions.forEach(partition -> partition.cancel(true));
+            throw new RuntimeException("Analytics rollup failed: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        for (LocalDate day : days) {
+            carryForward(day, today);
+        }
+        analyticsService.invalidate();
+
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("from", first);
+        run.put("to", today);
+        run.put("days", days.size());
+        run.put("elapsedMs", System.currentTimeMillis() - start);
+        run.put("finishedAt", LocalDateTime.now());
+        lastRun = run;
+        logger.info("Analytics rolled up {} day(s) from {} in {} ms", days.size(), first, run.get("elapsedMs"));
+        return run;
+    }
+
+    public Map<String, Object> getLastRun() {
+        return lastRun;
+    }
+
+    private LocalDate firstOpenDay() {
+        LocalDate lastClosed = jdbcTemplate.queryForObject(
+                "SELECT MAX(stat_date) FROM analytics_rollup_days WHERE closed = TRUE", LocalDate.class);
+        if (lastClosed != null) {
+            return lastClosed.plusDays(1);
+        }
+        return jdbcTemplate.queryForObject("SELECT MIN(borrow_date) FROM transactions", LocalDate.class);
+    }
+
+    private void rollupDay(LocalDate day) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            lock(day);
+            jdbcTemplate.update("DELETE FROM daily_book_stats WHERE stat_date = ?", day);
+            jdbcTemplate.update("DELETE FROM daily_category_stats WHERE stat_date = ?", day);
+            jdbcTemplate.update("DELETE FROM daily_member_stats WHERE stat_date = ?", day);
+
+            jdbcTemplate.update("INSERT INTO daily_book_stats (stat_date, book_id, borrows, returned, loaned_copies, total_copies) " +
+                    "SELECT ?, book_id, SUM(borrows), SUM(returned), 0, 0 FROM (" +
+                    "SELECT book_id, 1 AS borrows, 0 AS returned FROM transactions WHERE borrow_date = ? " +
+                    "UNION ALL SELECT book_id, 0, 1 FROM transactions WHERE return_date = ?) activity " +
+                    "GROUP BY book_id", day, day, day);
+            jdbcTemplate.update("INSERT INTO daily_member_stats (stat_date, member_id, borrows, returned) " +
+                    "SELECT ?, member_id, SUM(borrows), SUM(returned) FROM (" +
+                    "SELECT member_id, 1 AS borrows, 0 AS returned FROM transactions WHERE borrow_date = ? " +
+                    "UNION ALL SELECT member_id, 0, 1 FROM transactions WHERE return_date = ?) activity " +
+                    "GROUP BY member_id", day, day, day);
+            jdbcTemplate.update("INSERT INTO daily_category_stats (stat_date, category, borrows) " +
+                    "SELECT ?, COALESCE(b.category, 'Uncategorized'), COUNT(*) FROM transactions t " +
+                    "JOIN books b ON b.id = t.book_id WHERE t.borrow_date = ? " +
+                    "GROUP BY COALESCE(b.category, 'Uncategorized')", day, day);
+        });
+    }
+
+    private void carryForward(LocalDate day, LocalDate today) {
+        LocalDate previous = day.minusDays(1);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            lock(day);
+            // Books still on loan from the day before need a row even if nothing happened to them today
+            jdbcTemplate.update("INSERT INTO daily_book_stats (stat_date, book_id, borrows, returned, loaned_copies, total_copies) " +
+                    "SELECT ?, p.book_id, 0, 0, 0, 0 FROM daily_book_stats p WHERE p.stat_date = ? AND p.loaned_copies > 0 " +
+                    "AND NOT EXISTS (SELECT 1 FROM daily_book_stats c WHERE c.stat_date = ? AND c.book_id = p.book_id)",
+                    day, previous, day);
+            jdbcTemplate.update("UPDATE daily_book_stats c SET " +
+                    "loaned_copies = COALESCE((SELECT p.loaned_copies FROM daily_book_stats p " +
+                    "WHERE p.stat_date = ? AND p.book_id = c.book_id), 0) + c.borrows - c.returned, " +
+                    "total_copies = COALESCE((SELECT b.total_copies FROM books b WHERE b.id = c.book_id), 0) " +
+                    "WHERE c.stat_date = ?", previous, day);
+
+            jdbcTemplate.update("DELETE FROM analytics_rollup_days WHERE stat_date = ?", day);
+            jdbcTemplate.update("INSERT INTO analytics_rollup_days (stat_date, closed, rolled_up_at) VALUES (?, ?, ?)",
+                    day, day.isBefore(today), LocalDateTime.now());
+        });
+    }
+
+    private void lock(LocalDate day) {
+        if (datasourceUrl.startsWith("jdbc:postgresql:")) {
+            jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?, ?)", Object.class,
+                    ADVISORY_LOCK_CLASS, (int) day.toEpochDay());
+        }
+    }
+}
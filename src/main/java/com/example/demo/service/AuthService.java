@@ -1,5 +1,6 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.JwtResponse;
 import com.example.demo.dto.LoginRequest;
 import com.example.demo.dto.SignupRequest;
 import com.example.demo.model.ERole;
@@ -7,19 +8,24 @@ import com.example.demo.model.Role;
 import com.example.demo.model.User;
 import com.example.demo.repository.RoleRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.security.AuthenticatedTokenCache;
 import com.example.demo.security.JwtUtils;
+import com.example.demo.security.PasswordHashingExecutor;
+import com.example.demo.security.TokenDenylist;
+import com.example.demo.security.UserDetailsServiceImpl;
 import com.example.demo.security.UserPrincipal;
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -39,12 +45,66 @@ public class AuthService {
     @Autowired
     JwtUtils jwtUtils;
 
-    public String authenticateUser(LoginRequest loginRequest) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
+    @Autowired
+    PasswordHashingExecutor hashingExecutor;
+
+    @Autowired
+    TokenDenylist tokenDenylist;
+
+    @Autowired
+    AuthenticatedTokenCache tokenCache;
+
+    @Autowired
+    UserDetailsServiceImpl userDetailsService;
+
+    // The BCrypt check runs on the hashing pool; the response is built from the principal loaded
+    // during authentication, so no second user lookup is needed
+    public CompletableFuture<JwtResponse> authenticateUser(LoginRequest loginRequest) {
+        return hashingExecutor.submit(() -> {
+            Authentication authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
+            UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+
+            return issueTokens(userPrincipal);
+        });
+    }
+
+    // Rotation: the presented refresh token is revoked and a new pair issued, without any BCrypt work
+    public JwtResponse refreshToken(String refreshToken) {
+        Claims claims = jwtUtils.parseValidClaims(refreshToken);
+        if (claims == null || !jwtUtils.isRefreshToken(claims)
+                || !tokenDenylist.revoke(claims.getId(), claims.getExpiration())) {
+            throw new RuntimeException("Error: Refresh token is invalid or expired");
+        }
+        UserPrincipal userPrincipal = (UserPrincipal) userDetailsService.loadUserByUsername(claims.getSubject());
+        return issueTokens(userPrincipal);
+    }
+
+    public void logout(String accessToken, String refreshToken) {
+        if (accessToken != null) {
+            Claims claims = jwtUtils.parseValidClaims(accessToken);
+            if (claims != null) {
+                tokenDenylist.revoke(claims.getId(), claims.getExpiration());
+            }
+            tokenCache.evictToken(accessToken);
+        }
+        if (refreshToken != null) {
+            Claims claims = jwtUtils.parseValidClaims(refreshToken);
+            if (claims != null && jwtUtils.isRefreshToken(claims)) {
+                tokenDenylist.revoke(claims.getId(), claims.getExpiration());
+            }
+        }
+    }
 
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        return jwtUtils.generateJwtToken(authentication);
+    private JwtResponse issueTokens(UserPrincipal userPrincipal) {
+        return new JwtResponse(jwtUtils.generateAccessToken(userPrincipal.getUsername()),
+                jwtUtils.generateRefreshToken(userPrincipal.getUsername()),
+                userPrincipal.getId(),
+                userPrincipal.getUsername(),
+                userPrincipal.getEmail(),
+                userPrincipal.getAuthorities().stream()
+                        .map(item -> item.getAuthority())
+                        .collect(Collectors.toList()));
     }
 
     public User registerUser(SignupRequest signUpRequest) {
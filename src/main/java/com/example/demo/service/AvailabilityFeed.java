@@ -0,0 +1,188 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.BookCacheInvalidator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Live availability for GET /api/books/stream. Changes only mark a book dirty; every coalesce window one
+ * thread reads the current copy counts of the dirty books in one query, serializes them once and writes
+ * the same message to every subscriber. However often a book changes within the window, subscribers get
+ * its latest count once. Subscribers are async SseEmitters, so an idle connection holds no thread.
+ * Changes come from BookCacheInvalidator: this instance's own after they commit, the other instances'
+ * through its NOTIFY channel. Not from the outbox, whose events reach one instance only.
+ * New books are announced with their counts; a book that no longer exists is sent as removed.
+ */
+@Component
+public class AvailabilityFeed {
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityFeed.class);
+
+    private static final int QUERY_CHUNK = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BookCacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${books.stream.coalesce-ms:500}")
+    private long coalesceMs;
+
+    @Value("${books.stream.heartbeat-ms:30000}")
+    private long heartbeatMs;
+
+    @Value("${books.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${books.stream.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    private final Set<SseEmitter> subscribers = ConcurrentHashMap.newKeySet();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService sender;
+
+    @PostConstruct
+    public void init() {
+        sender = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "availability-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sender.scheduleWithFixedDelay(this::flush, coalesceMs, coalesceMs, TimeUnit.MILLISECONDS);
+        sender.scheduleWithFixedDelay(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        cacheInvalidator.onChange(this::changed);
+        Gauge.builder("books.stream.subscribers", subscribers, Set::size)
+                .description("Open GET /api/books/stream connections")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        subscribers.forEach(SseEmitter::complete);
+    }
+
+    /**
+     * @return null when the subscriber limit is reached
+     */
+    public SseEmitter subscribe() {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(error -> subscribers.remove(emitter));
+        try {
+            // Commits the response straight away instead of at the first change, and paces reconnects
+            emitter.send(SseEmitter.event().reconnectTime(coalesceMs * 4).comment("connected"));
+        } catch (IOException e) {
+            return emitter;
+        }
+        subscribers.add(emitter);
+        return emitter;
+    }
+
+    private void changed(Long bookId) {
+        if (bookId != null && bookId > 0) {
+            dirty.add(bookId);
+        }
+    }
+
+    private void flush() {
+        try {
+            if (dirty.isEmpty()) {
+                return;
+            }
+            List<Long> bookIds = new ArrayList<>(dirty);
+            bookIds.forEach(dirty::remove);
+            if (subscribers.isEmpty()) {
+                return;
+            }
+            List<Map<String, Object>> deltas = currentCopies(bookIds);
+            if (!deltas.isEmpty()) {
+                send(SseEmitter.event().name("availability").data(objectMapper.writeValueAsString(deltas)));
+            }
+        } catch (RuntimeException e) {
+            // Never let an exception cancel the scheduled task
+            logger.warn("Availability feed flush failed: {}", e.getMessage());
+        }
+    }
+
+    private List<Map<String, Object>> currentCopies(List<Long> bookIds) {
+        List<Map<String, Object>> deltas = new ArrayList<>(bookIds.size());
+        Set<Long> missing = new LinkedHashSet<>(bookIds);
+        for (int from = 0; from < bookIds.size(); from += QUERY_CHUNK) {
+            List<Long> chunk = bookIds.subList(from, Math.min(from + QUERY_CHUNK, bookIds.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.query("SELECT id, available_copies FROM books WHERE id IN (" + placeholders + ")", rs -> {
+                Map<String, Object> delta = new LinkedHashMap<>();
+                delta.put("bookId", rs.getLong("id"));
+                delta.put("availableCopies", rs.getInt("available_copies"));
+                deltas.add(delta);
+                missing.remove(rs.getLong("id"));
+            }, chunk.toArray());
+        }
+        // Deleted since it changed
+        for (Long bookId : missing) {
+            Map<String, Object> delta = new LinkedHashMap<>();
+            delta.put("bookId", bookId);
+            delta.put("removed", true);
+            deltas.add(delta);
+        }
+        return deltas;
+    }
+
+    // Keeps proxies from closing idle connections and finds clients that went away
+    private void heartbeat() {
+        try {
+            send(SseEmitter.event().comment("keepalive"));
+        } catch (RuntimeException e) {
+            logger.warn("Availability feed heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    private void send(SseEmitter.SseEventBuilder builder) {
+        // Built once: building again would append to the same event
+        Set<ResponseBodyEmitter.DataWithMediaType> event = builder.build();
+        for (SseEmitter emitter : subscribers) {
+            try {
+                emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(emitter);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
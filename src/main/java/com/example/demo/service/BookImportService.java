@@ -0,0 +1,317 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.BookImportResult;
+import com.example.demo.event.BookUpdated;
+import com.example.demo.model.Book;
+import com.example.demo.repository.BookCacheInvalidator;
+import com.example.demo.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Loads books from CSV or NDJSON without holding the file in memory. Records are parsed one at a time,
+ * validated against the annotations on {@link Book}, de-duplicated by ISBN and written in chunks, each chunk
+ * in its own transaction with batched INSERTs. A failure therefore keeps the chunks already written.
+ */
+@Service
+public class BookImportService {
+    private static final Logger logger = LoggerFactory.getLogger(BookImportService.class);
+
+    public static final String CSV = "csv";
+    public static final String NDJSON = "ndjson";
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookSuggestionIndex suggestionIndex;
+
+    @Autowired
+    private BookCacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private DomainEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${book.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${book.import.progress-interval:10000}")
+    private int progressInterval;
+
+    public static String formatOf(String fileName) {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(".csv") ? CSV : NDJSON;
+    }
+
+    public BookImportResult importBooks(InputStream input, String format) throws IOException {
+        if (!CSV.equals(format) && !NDJSON.equals(format)) {
+            throw new IllegalArgumentException("Unsupported import format: " + format);
+        }
+        long start = System.currentTimeMillis();
+        BookImportResult result = new BookImportResult(format);
+        // Keyed by ISBN, so a book repeated within one chunk is caught before the database is asked
+        Map<String, Book> chunk = new LinkedHashMap<>();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        if (CSV.equals(format)) {
+            readCsv(reader, result, chunk, start);
+        } else {
+            readNdjson(reader, result, chunk, start);
+        }
+        writeChunk(chunk, result, start);
+
+        result.setElapsedMs(System.currentTimeMillis() - start);
+        logger.info("Book import finished: {} read, {} imported, {} duplicates, {} invalid in {} ms",
+                result.getRead(), result.getImported(), result.getDuplicates(), result.getInvalid(), result.getElapsedMs());
+        return result;
+    }
+
+    private void readNdjson(BufferedReader reader, BookImportResult result, Map<String, Book> chunk, long start) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            long record = result.getRead() + 1;
+            result.setRead(record);
+            Book book;
+            try {
+                book = objectMapper.readValue(line, Book.class);
+            } catch (JacksonException e) {
+                reject(result, record, "not a valid book: " + e.getOriginalMessage());
+                continue;
+            }
+            accept(book, record, result, chunk, start);
+        }
+    }
+
+    private void readCsv(BufferedReader reader, BookImportResult result, Map<String, Book> chunk, long start) throws IOException {
+        List<String> header = readCsvRecord(reader);
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(columnKey(header.get(i)), i);
+        }
+        if (!columns.containsKey("title") || !columns.containsKey("author") || !columns.containsKey("isbn")
+                || !columns.containsKey("totalcopies")) {
+            throw new IllegalArgumentException("CSV header must name at least title, author, isbn and totalCopies");
+        }
+
+        List<String> fields;
+        while ((fields = readCsvRecord(reader)) != null) {
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            long record = result.getRead() + 1;
+            result.setRead(record);
+            Book book;
+            try {
+                book = toBook(fields, columns);
+            } catch (NumberFormatException | DateTimeParseException e) {
+                reject(result, record, e.getMessage());
+                continue;
+            }
+            accept(book, record, result, chunk, start);
+        }
+    }
+
+    private Book toBook(List<String> fields, Map<String, Integer> columns) {
+        Book book = new Book();
+        book.setTitle(field(fields, columns, "title"));
+        book.setAuthor(field(fields, columns, "author"));
+        book.setIsbn(field(fields, columns, "isbn"));
+        book.setTotalCopies(intField(fields, columns, "totalcopies", "totalCopies"));
+        book.setAvailableCopies(intField(fields, columns, "availablecopies", "availableCopies"));
+        book.setPublisher(field(fields, columns, "publisher"));
+        String publicationDate = field(fields, columns, "publicationdate");
+        book.setPublicationDate(publicationDate == null ? null : LocalDate.parse(publicationDate));
+        book.setCategory(field(fields, columns, "category"));
+        return book;
+    }
+
+    private String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private Integer intField(List<String> fields, Map<String, Integer> columns, String column, String name) {
+        String value = field(fields, columns, column);
+        try {
+            return value == null ? null : Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException(name + " is not a number: " + value);
+        }
+    }
+
+    // "Total Copies", "total_copies" and "totalCopies" all name the same column
+    private static String columnKey(String name) {
+        return name.replaceAll("[^\\p{L}\\p{N}]", "").toLowerCase(Locale.ROOT);
+    }
+
+    private void accept(Book book, long record, BookImportResult result, Map<String, Book> chunk, long start) {
+        book.setId(null);
+        if (book.getIsbn() != null) {
+            book.setIsbn(book.getIsbn().trim());
+        }
+        if (book.getAvailableCopies() == null) {
+            book.setAvailableCopies(book.getTotalCopies());
+        }
+        Set<ConstraintViolation<Book>> violations = validator.validate(book);
+        if (!violations.isEmpty()) {
+            reject(result, record, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+            return;
+        }
+        if (chunk.putIfAbsent(book.getIsbn(), book) != null) {
+            result.setDuplicates(result.getDuplicates() + 1);
+            return;
+        }
+        if (chunk.size() >= chunkSize) {
+            writeChunk(chunk, result, start);
+        }
+    }
+
+    private void reject(BookImportResult result, long record, String reason) {
+        result.setInvalid(result.getInvalid() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add("record " + record + ": " + reason);
+        }
+    }
+
+    private void writeChunk(Map<String, Book> chunk, BookImportResult result, long start) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<Book> saved = new TransactionTemplate(transactionManager).execute(status -> {
+            // Imported books would only push the books people are reading out of the second-level cache
+            entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+            Set<String> existing = bookRepository.findExistingIsbns(chunk.keySet());
+            List<Book> fresh = new ArrayList<>(chunk.size());
+            for (Book book : chunk.values()) {
+                if (!existing.contains(book.getIsbn())) {
+                    fresh.add(book);
+                }
+            }
+            List<Book> inserted = bookRepository.saveAll(fresh);
+            entityManager.flush();
+            // Written with the chunk, so subscribers hear about exactly the books that committed
+            LocalDateTime now = LocalDateTime.now();
+            eventPublisher.publishAll(inserted.stream()
+                    .map(book -> new BookUpdated(book.getId(), book.getTotalCopies(), book.getAvailableCopies(), now))
+                    .toList());
+            entityManager.flush();
+            entityManager.clear();
+            if (!inserted.isEmpty()) {
+                cacheInvalidator.booksAdded(inserted.stream().map(Book::getId).toList());
+            }
+            return inserted;
+        });
+
+        long previouslyRead = result.getRead() - chunk.size();
+        result.setImported(result.getImported() + saved.size());
+        result.setDuplicates(result.getDuplicates() + chunk.size() - saved.size());
+        saved.forEach(suggestionIndex::index);
+        chunk.clear();
+
+        if (result.getRead() / progressInterval > previouslyRead / progressInterval) {
+            long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+            logger.info("Book import progress: {} read, {} imported, {} duplicates, {} invalid ({} records/s)",
+                    result.getRead(), result.getImported(), result.getDuplicates(), result.getInvalid(),
+                    result.getRead() * 1000 / elapsed);
+        }
+    }
+
+    /**
+     * Reads one RFC 4180 record: quoted fields may hold commas, doubled quotes and line breaks.
+     * Returns null at the end of the input.
+     */
+    static List<String> readCsvRecord(BufferedReader reader) throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("Unterminated quoted CSV field: " + field);
+                }
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+}
@@ -1,24 +1,119 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.BookPage;
+import com.example.demo.dto.BookSuggestion;
+import com.example.demo.event.BookRemoved;
+import com.example.demo.event.BookUpdated;
 import com.example.demo.model.Book;
+import com.example.demo.repository.BookCacheInvalidator;
 import com.example.demo.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class BookService {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private BookSuggestionIndex suggestionIndex;
+
+    @Autowired
+    private BookCacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private DomainEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.datasource.url}")
+    private String datasourceUrl;
+
+    @Transactional(readOnly = true)
     public List<Book> getAllBooks() {
         return bookRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public BookPage getBooksPage(String cursor, Integer size, String sort, String direction) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        boolean byTitle = "title".equalsIgnoreCase(sort);
+        boolean descending = "desc".equalsIgnoreCase(direction);
+        if (sort != null && !byTitle && !"id".equalsIgnoreCase(sort)) {
+            throw new IllegalArgumentException("Unsupported sort: " + sort);
+        }
+        if (direction != null && !descending && !"asc".equalsIgnoreCase(direction)) {
+            throw new IllegalArgumentException("Unsupported direction: " + direction);
+        }
+        String sortKey = (byTitle ? "title" : "id") + (descending ? ",desc" : ",asc");
+
+        // Ask for one extra row to find out whether another page exists
+        Limit limit = Limit.of(pageSize + 1);
+        List<Book> books;
+        if (cursor == null || cursor.isBlank()) {
+            if (byTitle) {
+                books = descending ? bookRepository.findAllByOrderByTitleDescIdDesc(limit)
+                        : bookRepository.findAllByOrderByTitleAscIdAsc(limit);
+            } else {
+                books = descending ? bookRepository.findPageByIdDesc(Long.MAX_VALUE, limit)
+                        : bookRepository.findPageByIdAsc(0L, limit);
+            }
+        } else {
+            String[] position = decodeCursor(cursor, sortKey);
+            Long lastId = Long.valueOf(position[1]);
+            if (byTitle) {
+                books = descending ? bookRepository.findPageByTitleDesc(position[2], lastId, limit)
+                        : bookRepository.findPageByTitleAsc(position[2], lastId, limit);
+            } else {
+                books = descending ? bookRepository.findPageByIdDesc(lastId, limit)
+                        : bookRepository.findPageByIdAsc(lastId, limit);
+            }
+        }
+
+        String nextCursor = null;
+        if (books.size() > pageSize) {
+            books = books.subList(0, pageSize);
+            nextCursor = encodeCursor(sortKey, books.get(pageSize - 1), byTitle);
+        }
+        return new BookPage(books, nextCursor, books.size());
+    }
+
+    @Transactional(readOnly = true)
+    public void forEachBook(Consumer<Book> consumer) {
+        try (Stream<Book> books = bookRepository.streamAllBooks()) {
+            books.forEach(book -> {
+                consumer.accept(book);
+                // Keep the persistence context from growing with the catalog
+                entityManager.detach(book);
+            });
+        }
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Book> getBookById(Long id) {
         return bookRepository.findById(id);
     }
@@ -27,7 +122,13 @@ public class BookService {
         if (book.getAvailableCopies() == null) {
             book.setAvailableCopies(book.getTotalCopies());
         }
-        return bookRepository.save(book);
+        // Flushed so the row exists when the event is numbered against it
+        Book savedBook = bookRepository.saveAndFlush(book);
+        afterCommit(() -> suggestionIndex.index(savedBook));
+        cacheInvalidator.bookChanged(savedBook.getId());
+        eventPublisher.publish(new BookUpdated(savedBook.getId(), savedBook.getTotalCopies(),
+                savedBook.getAvailableCopies(), LocalDateTime.now()));
+        return savedBook;
     }
 
     public Book updateBook(Long id, Book bookDetails) {
@@ -43,21 +144,89 @@ public class BookService {
         book.setPublicationDate(bookDetails.getPublicationDate());
         book.setCategory(bookDetails.getCategory());
 
-        return bookRepository.save(book);
+        // Flushed first so the book row is locked before the event takes its place in the outbox
+        Book savedBook = bookRepository.saveAndFlush(book);
+        afterCommit(() -> suggestionIndex.index(savedBook));
+        cacheInvalidator.bookChanged(id);
+        eventPublisher.publish(new BookUpdated(id, savedBook.getTotalCopies(), savedBook.getAvailableCopies(),
+                LocalDateTime.now()));
+        return savedBook;
     }
 
     public void deleteBook(Long id) {
         Book book = bookRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Book not found with id: " + id));
+        // Published while the row still exists to number the event against; that also locks it for the delete
+        eventPublisher.publish(new BookRemoved(id, LocalDateTime.now()));
         bookRepository.delete(book);
+        afterCommit(() -> suggestionIndex.remove(id));
+        cacheInvalidator.bookChanged(id);
     }
 
-    public List<Book> searchBooks(String keyword) {
-        return bookRepository.searchBooks(keyword);
+    @Transactional(readOnly = true)
+    public List<Book> searchBooks(String keyword, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageNumber = Math.max(page, 0);
+        if (!datasourceUrl.startsWith("jdbc:postgresql:")) {
+            return bookRepository.searchBooksIgnoreCase(keyword.trim(), PageRequest.of(pageNumber, pageSize));
+        }
+
+        String query = toPrefixTsQuery(keyword);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        return bookRepository.fullTextSearch(query, pageSize, (long) pageNumber * pageSize);
     }
 
+    public List<BookSuggestion> suggest(String prefix, int limit) {
+        return suggestionIndex.suggest(prefix, Math.max(1, Math.min(limit, 25)));
+    }
+
+    @Transactional(readOnly = true)
     public List<Book> getBooksByCategory(String category) {
         return bookRepository.findByCategory(category);
     }
-}
 
+    // The suggestion index only ever sees committed changes; a rolled-back one leaves it untouched
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // "Clean Code 978-0-13" -> "clean:* & code:* & 978013:*", every word matched as a prefix
+    private String toPrefixTsQuery(String keyword) {
+        String normalized = keyword.toLowerCase(Locale.ROOT).replaceAll("(?<=\\d)-(?=\\d)", "");
+        return Arrays.stream(normalized.split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isEmpty())
+                .map(term -> term + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+
+    private String encodeCursor(String sortKey, Book last, boolean byTitle) {
+        String raw = sortKey + "|" + last.getId() + (byTitle ? "|" + last.getTitle() : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor, String sortKey) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        String[] parts = raw.split("\\|", 3);
+        if (!parts[0].equals(sortKey) || parts.length != (sortKey.startsWith("title") ? 3 : 2)
+                || !parts[1].matches("\\d+")) {
+            throw new IllegalArgumentException("Invalid cursor for sort " + sortKey);
+        }
+        return parts;
+    }
+}
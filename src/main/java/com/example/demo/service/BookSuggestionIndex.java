@@ -0,0 +1,246 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.BookSuggestion;
+import com.example.demo.model.Book;
+import com.example.demo.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory trigram index over normalized book titles and authors, used for search-box suggestions.
+ * Entries are kept per distinct title/author text; each remembers which books carry it.
+ * Callers apply committed changes only. A rebuild streams an older snapshot, so it leaves alone the books
+ * that changed while it ran.
+ */
+@Component
+public class BookSuggestionIndex {
+    private static final Logger logger = LoggerFactory.getLogger(BookSuggestionIndex.class);
+
+    // Share of the query's trigrams a candidate must contain; lower tolerates more typos
+    private static final double MIN_SIMILARITY = 0.5;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> trigrams = new ConcurrentHashMap<>();
+    private final Map<Long, List<String>> keysByBook = new ConcurrentHashMap<>();
+
+    // Books indexed or removed while a rebuild is running; null otherwise. Guarded by this
+    private Set<Long> changedDuringRebuild;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private static final class Entry {
+        final String text;
+        final String field;
+        final Set<Long> bookIds = ConcurrentHashMap.newKeySet();
+
+        Entry(String text, String field) {
+            this.text = text;
+            this.field = field;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildInBackground() {
+        Thread builder = new Thread(this::rebuild, "book-suggestion-index");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        synchronized (this) {
+            changedDuringRebuild = new HashSet<>();
+        }
+        try {
+            template.executeWithoutResult(status -> {
+                try (Stream<Book> books = bookRepository.streamAllBooks()) {
+                    books.forEach(book -> {
+                        indexFromSnapshot(book);
+                        entityManager.detach(book);
+                    });
+                }
+            });
+            logger.info("Book suggestion index built with {} entries in {} ms",
+                    entries.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("Could not build book suggestion index: {}", e.getMessage());
+        } finally {
+            synchronized (this) {
+                changedDuringRebuild = null;
+            }
+        }
+    }
+
+    public synchronized void index(Book book) {
+        markChanged(book.getId());
+        put(book);
+    }
+
+    public synchronized void remove(Long bookId) {
+        markChanged(bookId);
+        delete(bookId);
+    }
+
+    private synchronized void indexFromSnapshot(Book book) {
+        if (changedDuringRebuild == null || !changedDuringRebuild.contains(book.getId())) {
+            put(book);
+        }
+    }
+
+    private void markChanged(Long bookId) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(bookId);
+        }
+    }
+
+    private void put(Book book) {
+        delete(book.getId());
+        List<String> keys = new ArrayList<>(2);
+        addEntry(book.getId(), book.getTitle(), "title", keys);
+        addEntry(book.getId(), book.getAuthor(), "author", keys);
+        keysByBook.put(book.getId(), keys);
+    }
+
+    private void delete(Long bookId) {
+        List<String> keys = keysByBook.remove(bookId);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            entries.computeIfPresent(key, (k, entry) -> {
+                entry.bookIds.remove(bookId);
+                if (!entry.bookIds.isEmpty()) {
+                    return entry;
+                }
+                for (String trigram : trigramsOf(k.substring(k.indexOf(':') + 1), false)) {
+                    trigrams.computeIfPresent(trigram, (t, postings) -> {
+                        postings.remove(k);
+                        return postings.isEmpty() ? null : postings;
+                    });
+                }
+                return null;
+            });
+        }
+    }
+
+    public List<BookSuggestion> suggest(String prefix, int limit) {
+        String query = normalize(prefix);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        Set<String> queryTrigrams = trigramsOf(query, true);
+
+        Map<String, Integer> hits = new HashMap<>();
+        for (String trigram : queryTrigrams) {
+            Set<String> postings = trigrams.get(trigram);
+            if (postings != null) {
+                for (String key : postings) {
+                    hits.merge(key, 1, Integer::sum);
+                }
+            }
+        }
+
+        List<Map.Entry<String, Double>> scored = new ArrayList<>();
+        for (Map.Entry<String, Integer> hit : hits.entrySet()) {
+            double score = (double) hit.getValue() / queryTrigrams.size();
+            if (score < MIN_SIMILARITY) {
+                continue;
+            }
+            String text = hit.getKey().substring(hit.getKey().indexOf(':') + 1);
+            // Real prefix matches rank above fuzzy ones
+            if (text.startsWith(query) || text.contains(" " + query)) {
+                score += 1.0;
+            }
+            scored.add(Map.entry(hit.getKey(), score));
+        }
+        scored.sort(Comparator.comparing((Map.Entry<String, Double> e) -> e.getValue()).reversed()
+                .thenComparing(e -> e.getKey().length()));
+
+        List<BookSuggestion> suggestions = new ArrayList<>();
+        for (Map.Entry<String, Double> candidate : scored) {
+            Entry entry = entries.get(candidate.getKey());
+            if (entry != null) {
+                suggestions.add(new BookSuggestion(entry.text, entry.field, entry.bookIds.size()));
+                if (suggestions.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return suggestions;
+    }
+
+    private void addEntry(Long bookId, String text, String field, List<String> keys) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        String key = field + ":" + normalized;
+        entries.compute(key, (k, entry) -> {
+            if (entry == null) {
+                entry = new Entry(text.trim(), field);
+                for (String trigram : trigramsOf(normalized, false)) {
+                    trigrams.compute(trigram, (t, postings) -> {
+                        Set<String> updated = postings == null ? ConcurrentHashMap.newKeySet() : postings;
+                        updated.add(k);
+                        return updated;
+                    });
+                }
+            }
+            entry.bookIds.add(bookId);
+            return entry;
+        });
+        keys.add(key);
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String stripped = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return stripped.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    // Word trigrams padded like pg_trgm; the last word of a prefix query gets no trailing pad
+    static Set<String> trigramsOf(String normalized, boolean prefixQuery) {
+        Set<String> result = new LinkedHashSet<>();
+        String[] words = normalized.split(" ");
+        for (int i = 0; i < words.length; i++) {
+            boolean open = prefixQuery && i == words.length - 1;
+            String padded = "  " + words[i] + (open ? "" : " ");
+            for (int j = 0; j + 3 <= padded.length(); j++) {
+                result.add(padded.substring(j, j + 3));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Service
+public class CacheStatisticsService {
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    public Map<String, Object> getStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region != null) {
+                regions.put(regionName, toMap(region));
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("secondLevelCacheHits", statistics.getSecondLevelCacheHitCount());
+        response.put("secondLevelCacheMisses", statistics.getSecondLevelCacheMissCount());
+        response.put("secondLevelCachePuts", statistics.getSecondLevelCachePutCount());
+        response.put("queryCacheHits", statistics.getQueryCacheHitCount());
+        response.put("queryCacheMisses", statistics.getQueryCacheMissCount());
+        response.put("queryCachePuts", statistics.getQueryCachePutCount());
+        response.put("regions", regions);
+        return response;
+    }
+
+    private Map<String, Object> toMap(CacheRegionStatistics region) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        long hits = region.getHitCount();
+        long misses = region.getMissCount();
+        values.put("hits", hits);
+        values.put("misses", misses);
+        values.put("puts", region.getPutCount());
+        values.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return values;
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.demo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Dashboard queries over the daily tables written by {@link AnalyticsRollup}. Results only change when a
+ * rollup finishes, so they are cached until then.
+ */
+@Service
+public class CirculationAnalyticsService {
+    public static final int MAX_WINDOW_DAYS = 366;
+
+    // Upper bounds of the member activity buckets: 1, 2-3, 4-7, 8-15, 16-31, 32+ borrows
+    private static final int[] ACTIVITY_BUCKETS = {1, 3, 7, 15, 31};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Cache<String, Object> results = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .build();
+
+    void invalidate() {
+        results.invalidateAll();
+    }
+
+    public Map<String, Object> topBooks(int days, int limit) {
+        int window = clampWindow(days);
+        int size = Math.max(1, Math.min(limit, 100));
+        return cached("top-books:" + window + ":" + size, () -> {
+            LocalDate to = LocalDate.now();
+            LocalDate from = to.minusDays(window - 1);
+            List<Map<String, Object>> books = jdbcTemplate.query(
+                    "SELECT s.book_id, b.title, b.author, SUM(s.borrows) AS borrows FROM daily_book_stats s " +
+                            "JOIN books b ON b.id = s.book_id WHERE s.stat_date BETWEEN ? AND ? " +
+                            "GROUP BY s.book_id, b.title, b.author HAVING SUM(s.borrows) > 0 " +
+                            "ORDER BY borrows DESC, s.book_id ASC LIMIT ?",
+                    (rs, rowNum) -> {
+                        Map<String, Object> book = new LinkedHashMap<>();
+                        book.put("bookId", rs.getLong("book_id"));
+                        book.put("title", rs.getString("title"));
+                        book.put("author", rs.getString("author"));
+                        book.put("borrows", rs.getLong("borrows"));
+                        return book;
+                    }, from, to, size);
+            return window(from, to, "books", books);
+        });
+    }
+
+    public Map<String, Object> categoryTrends(int days) {
+        int window = clampWindow(days);
+        return cached("category-trends:" + window, () -> {
+            LocalDate to = LocalDate.now();
+            LocalDate from = to.minusDays(window - 1);
+            Map<String, Map<String, Object>> byCategory = new LinkedHashMap<>();
+            jdbcTemplate.query("SELECT category, stat_date, borrows FROM daily_category_stats " +
+                    "WHERE stat_date BETWEEN ? AND ? ORDER BY category, stat_date", rs -> {
+                Map<String, Object> category = byCategory.computeIfAbsent(rs.getString("category"), name -> {
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("category", name);
+                    entry.put("borrows", 0L);
+                    entry.put("daily", new ArrayList<Map<String, Object>>());
+                    return entry;
+                });
+                category.put("borrows", (Long) category.get("borrows") + rs.getInt("borrows"));
+                @SuppressWarnings("unchecked")
+                List<Map<String, Object>> daily = (List<Map<String, Object>>) category.get("daily");
+                daily.add(Map.of("date", rs.getObject("stat_date", LocalDate.class), "borrows", rs.getInt("borrows")));
+            }, from, to);
+            List<Map<String, Object>> categories = new ArrayList<>(byCategory.values());
+            categories.sort((a, b) -> Long.compare((Long) b.get("borrows"), (Long) a.get("borrows")));
+            return window(from, to, "categories", categories);
+        });
+    }
+
+    /**
+     * Copies on loan against total copies per day, for one book or, without a bookId, the whole catalog.
+     * Days without a row had no copies out.
+     */
+    public Map<String, Object> utilization(Long bookId, int days) {
+        int window = clampWindow(days);
+        return cached("utilization:" + bookId + ":" + window, () -> {
+            LocalDate to = LocalDate.now();
+            LocalDate from = to.minusDays(window - 1);
+            Map<LocalDate, Long> loaned = new HashMap<>();
+            Map<LocalDate, Long> totals = new HashMap<>();
+            long currentTotal;
+            if (bookId == null) {
+                jdbcTemplate.query("SELECT stat_date, SUM(loaned_copies) AS loaned FROM daily_book_stats " +
+                        "WHERE stat_date BETWEEN ? AND ? GROUP BY stat_date", rs -> {
+                    loaned.put(rs.getObject("stat_date", LocalDate.class), rs.getLong("loaned"));
+                }, from, to);
+                Long total = jdbcTemplate.queryForObject("SELECT SUM(total_copies) FROM books", Long.class);
+                currentTotal = total == null ? 0 : total;
+            } else {
+                List<Integer> total = jdbcTemplate.queryForList("SELECT total_copies FROM books WHERE id = ?", Integer.class, bookId);
+                if (total.isEmpty()) {
+                    return null;
+                }
+                currentTotal = total.get(0);
+                jdbcTemplate.query("SELECT stat_date, loaned_copies, total_copies FROM daily_book_stats " +
+                        "WHERE book_id = ? AND stat_date BETWEEN ? AND ?", rs -> {
+                    LocalDate date = rs.getObject("stat_date", LocalDate.class);
+                    loaned.put(date, rs.getLong("loaned_copies"));
+                    totals.put(date, rs.getLong("total_copies"));
+                }, bookId, from, to);
+            }
+
+            List<Map<String, Object>> daily = new ArrayList<>(window);
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                long onLoan = loaned.getOrDefault(date, 0L);
+                long total = totals.getOrDefault(date, currentTotal);
+                Map<String, Object> point = new LinkedHashMap<>();
+                point.put("date", date);
+                point.put("totalCopies", total);
+                point.put("loanedCopies", onLoan);
+                point.put("availableCopies", Math.max(total - onLoan, 0));
+                point.put("utilization", total == 0 ? 0.0 : Math.round(onLoan * 1000.0 / total) / 1000.0);
+                daily.add(point);
+            }
+            Map<String, Object> response = window(from, to, "daily", daily);
+            response.put("bookId", bookId);
+            return response;
+        });
+    }
+
+    public Map<String, Object> memberActivity(int days) {
+        int window = clampWindow(days);
+        return cached("member-activity:" + window, () -> {
+            LocalDate to = LocalDate.now();
+            LocalDate from = to.minusDays(window - 1);
+            long[] members = new long[ACTIVITY_BUCKETS.length + 1];
+            // Distinct per-member totals are few, so the database returns a small frequency table
+            jdbcTemplate.query("SELECT borrows, COUNT(*) AS members FROM (SELECT member_id, SUM(borrows) AS borrows " +
+                    "FROM daily_member_stats WHERE stat_date BETWEEN ? AND ? GROUP BY member_id) totals " +
+                    "WHERE borrows > 0 GROUP BY borrows", rs -> {
+                long borrows = rs.getLong("borrows");
+                int bucket = 0;
+                while (bucket < ACTIVITY_BUCKETS.length && borrows > ACTIVITY_BUCKETS[bucket]) {
+                    bucket++;
+                }
+                members[bucket] += rs.getLong("members");
+            }, from, to);
+
+            List<Map<String, Object>> histogram = new ArrayList<>();
+            long active = 0;
+            for (int i = 0; i < members.length; i++) {
+                int low = i == 0 ? 1 : ACTIVITY_BUCKETS[i - 1] + 1;
+                String range = i == ACTIVITY_BUCKETS.length ? low + "+"
+                        : low == ACTIVITY_BUCKETS[i] ? String.valueOf(low) : low + "-" + ACTIVITY_BUCKETS[i];
+                histogram.add(Map.of("borrows", range, "members", members[i]));
+                active += members[i];
+            }
+            Long totalMembers = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM members", Long.class);
+            Map<String, Object> response = window(from, to, "histogram", histogram);
+            response.put("activeMembers", active);
+            response.put("inactiveMembers", Math.max((totalMembers == null ? 0 : totalMembers) - active, 0));
+            return response;
+        });
+    }
+
+    private int clampWindow(int days) {
+        return Math.max(1, Math.min(days, MAX_WINDOW_DAYS));
+    }
+
+    // The date is part of the key, so windows move forward at midnight even without a rollup
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> cached(String key, Supplier<Map<String, Object>> query) {
+        Object value = results.get(key + ":" + LocalDate.now(), k -> {
+            Map<String, Object> result = query.get();
+            return result == null ? Map.of() : result;
+        });
+        Map<String, Object> result = (Map<String, Object>) value;
+        return result.isEmpty() ? null : result;
+    }
+
+    private Map<String, Object> window(LocalDate from, LocalDate to, String name, Object values) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("from", from);
+        response.put("to", to);
+        response.put(name, values);
+        return response;
+    }
+}
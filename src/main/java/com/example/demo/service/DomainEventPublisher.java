@@ -0,0 +1,95 @@
+package com.example.demo.service;
+
+import com.example.demo.event.DomainEvent;
+import com.example.demo.model.OutboxEvent;
+import com.example.demo.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records domain events in the outbox as part of the caller's transaction: the event exists exactly when
+ * the change does. Each event is numbered by bumping its book's event_version, which locks the book row
+ * until commit, so a book's events are numbered in the order they commit. The INSERT joins the
+ * transaction's JDBC batch; listeners run later on the {@link OutboxDispatcher} threads.
+ */
+@Component
+public class DomainEventPublisher {
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OutboxDispatcher dispatcher;
+
+    /**
+     * The book row must already be written: a book saved through JPA in the same transaction has to be
+     * flushed first.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(DomainEvent event) {
+        publishAll(List.of(event));
+    }
+
+    // Book rows are locked in id order, so transactions publishing for several books can't deadlock
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishAll(List<? extends DomainEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> countByBook = new TreeMap<>();
+        events.forEach(event -> countByBook.merge(event.bookId(), 1, Integer::sum));
+        jdbcTemplate.batchUpdate("UPDATE books SET event_version = event_version + ? WHERE id = ?",
+                countByBook.entrySet().stream()
+                        .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                        .toList());
+
+        // Each book's events take the numbers just below its new version, in the order given
+        Map<Long, Long> nextSeq = new HashMap<>();
+        List<Long> bookIds = new ArrayList<>(countByBook.keySet());
+        for (int from = 0; from < bookIds.size(); from += 1000) {
+            List<Long> chunk = bookIds.subList(from, Math.min(from + 1000, bookIds.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.query("SELECT id, event_version FROM books WHERE id IN (" + placeholders + ")", rs -> {
+                long bookId = rs.getLong("id");
+                nextSeq.put(bookId, rs.getLong("event_version") - countByBook.get(bookId) + 1);
+            }, chunk.toArray());
+        }
+
+        List<OutboxEvent> outboxEvents = new ArrayList<>(events.size());
+        for (DomainEvent event : events) {
+            Long seq = nextSeq.get(event.bookId());
+            if (seq == null) {
+                throw new IllegalStateException("Book not found with id: " + event.bookId());
+            }
+            nextSeq.put(event.bookId(), seq + 1);
+            outboxEvents.add(new OutboxEvent(event.bookId(), seq, event.getClass().getSimpleName(),
+                    objectMapper.writeValueAsString(event)));
+        }
+        outboxEventRepository.saveAll(outboxEvents);
+        // Don't leave the events waiting for the next poll
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatcher.wake();
+            }
+        });
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.HoldResponse;
+import com.example.demo.event.BookBorrowed;
+import com.example.demo.model.Hold;
+import com.example.demo.model.HoldStatus;
+import com.example.demo.model.Member;
+import com.example.demo.model.Transaction;
+import com.example.demo.repository.BookCacheInvalidator;
+import com.example.demo.repository.BookRepository;
+import com.example.demo.repository.HoldRepository;
+import com.example.demo.repository.MemberRepository;
+import com.example.demo.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-book FIFO hold queues, kept in the holds table itself so every instance serves the same queue. A returned
+ * copy goes to the oldest waiting hold, locked with SELECT ... FOR UPDATE SKIP LOCKED so a hold being cancelled
+ * is passed over instead of waited for. While a book has waiting holds, borrowBook refuses it so copies aren't
+ * taken past the queue; that check is an indexed EXISTS. On PostgreSQL, where instances announce new holds on
+ * the book_changes channel, the books that may have a queue are also tracked in memory and borrows of every
+ * other book skip the query.
+ */
+@Service
+public class HoldService {
+    private static final Logger logger = LoggerFactory.getLogger(HoldService.class);
+
+    @Autowired
+    private HoldRepository holdRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private OverdueIndex overdueIndex;
+
+    @Autowired
+    private DomainEventPublisher eventPublisher;
+
+    @Autowired
+    private MemberSummaryService memberSummaryService;
+
+    @Autowired
+    private BookCacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Books that may have waiting holds, each with the stamp of its latest hold so a check that found the
+    // queue empty can't drop a hold placed while it ran
+    private final Map<Long, Long> queueHints = new ConcurrentHashMap<>();
+    private final AtomicLong hintStamps = new AtomicLong();
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // Holds commit on their own, whatever transaction the caller has open
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        cacheInvalidator.onRemoteHold(this::mayHaveQueue);
+        cacheInvalidator.onReconnect(this::loadQueueHints);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadQueueHints() {
+        List<Long> bookIds = transactionTemplate.execute(status -> holdRepository.findBookIdsWithWaitingHolds());
+        bookIds.forEach(this::mayHaveQueue);
+        logger.info("Hold queue hints loaded for {} books", bookIds.size());
+    }
+
+    public boolean hasWaitingHolds(Long bookId) {
+        Long stamp = queueHints.get(bookId);
+        if (stamp == null && cacheInvalidator.notifiesOtherInstances()) {
+            return false;
+        }
+        boolean waiting = holdRepository.existsByBookIdAndStatus(bookId, HoldStatus.WAITING);
+        if (!waiting && stamp != null) {
+            queueHints.remove(bookId, stamp);
+        }
+        return waiting;
+    }
+
+    public HoldResponse placeHold(Long bookId, Long memberId) {
+        Hold hold = transactionTemplate.execute(status -> {
+            Member member = memberRepository.findById(memberId)
+                    .orElseThrow(() -> new RuntimeException("Member not found with id: " + memberId));
+            if (!member.getIsActive()) {
+                throw new RuntimeException("Member is not active");
+            }
+            // Returns of the book hold this lock while they look for a hold, so a return either sees this
+            // hold or has put its copy back on the shelf before the drain below looks there
+            if (bookRepository.lockById(bookId).isEmpty()) {
+                throw new RuntimeException("Book not found with id: " + bookId);
+            }
+            if (holdRepository.existsByBookIdAndMemberIdAndStatus(bookId, memberId, HoldStatus.WAITING)) {
+                throw new RuntimeException("Member already has a hold on this book");
+            }
+            cacheInvalidator.holdPlaced(bookId);
+            return holdRepository.save(new Hold(bookRepository.getReferenceById(bookId), member));
+        });
+        mayHaveQueue(bookId);
+        // A copy may have come back while the queue was still empty
+        drain(bookId);
+        return getHold(bookId, hold.getId());
+    }
+
+    public HoldResponse getHold(Long bookId, Long holdId) {
+        return transactionTemplate.execute(status -> holdRepository.findWithDetailsById(holdId)
+                .filter(hold -> hold.getBook().getId().equals(bookId))
+                .map(hold -> new HoldResponse(hold, positionOf(bookId, hold)))
+                .orElseThrow(() -> new RuntimeException("Hold not found with id: " + holdId)));
+    }
+
+    public List<HoldResponse> getWaitingHolds(Long bookId) {
+        return transactionTemplate.execute(status -> {
+            List<Hold> holds = holdRepository.findByBookIdAndStatusOrderByIdAsc(bookId, HoldStatus.WAITING);
+            List<HoldResponse> responses = new ArrayList<>(holds.size());
+            for (Hold hold : holds) {
+                responses.add(new HoldResponse(hold, responses.size() + 1));
+            }
+            return responses;
+        });
+    }
+
+    public HoldResponse cancelHold(Long bookId, Long holdId) {
+        getHold(bookId, holdId);
+        Integer cancelled = transactionTemplate.execute(status ->
+                holdRepository.close(holdId, HoldStatus.CANCELLED, LocalDateTime.now(), null));
+        if (cancelled == null || cancelled == 0) {
+            throw new RuntimeException("Hold is no longer waiting");
+        }
+        return getHold(bookId, holdId);
+    }
+
+    /**
+     * Called inside the transaction that returns copies of a book, once it has locked the book row by
+     * publishing its events: each copy becomes a loan for the next waiting holder while there is one.
+     *
+     * @return how many of the copies go back on the shelf
+     */
+    public int allocateReturnedCopies(Long bookId, int copies) {
+        int shelved = copies;
+        if (hasWaitingHolds(bookId)) {
+            while (shelved > 0 && allocate(bookId)) {
+                shelved--;
+            }
+        }
+        return shelved;
+    }
+
+    // The claimed hold stays locked until commit, so a rollback leaves it waiting at the front of the queue
+    private boolean allocate(Long bookId) {
+        Long holdId;
+        while ((holdId = holdRepository.claimOldestWaiting(bookId).orElse(null)) != null) {
+            Hold hold = holdRepository.findWithDetailsById(holdId).orElseThrow();
+            Long memberId = hold.getMember().getId();
+            if (!hold.getMember().getIsActive()) {
+                holdRepository.close(holdId, HoldStatus.CANCELLED, LocalDateTime.now(), null);
+                continue;
+            }
+            Transaction transaction = transactionRepository.save(new Transaction(
+                    bookRepository.getReferenceById(bookId), memberRepository.getReferenceById(memberId)));
+            holdRepository.close(holdId, HoldStatus.FULFILLED, LocalDateTime.now(), transaction.getId());
+            overdueIndex.onBorrowed(transaction);
+            memberSummaryService.evict(memberId);
+            eventPublisher.publish(new BookBorrowed(bookId, memberId, transaction.getId(), transaction.getDueDate(),
+                    LocalDateTime.now()));
+            return true;
+        }
+        return false;
+    }
+
+    // Hands copies that are on the shelf to waiting holds, one copy per transaction. The check runs inside it
+    // so it reads the primary, where the hold just placed is already visible
+    private void drain(Long bookId) {
+        while (true) {
+            Boolean allocated = transactionTemplate.execute(status -> {
+                if (!hasWaitingHolds(bookId) || bookRepository.decrementAvailableCopies(bookId) == 0) {
+                    return false;
+                }
+                if (allocate(bookId)) {
+                    return true;
+                }
+                bookRepository.incrementAvailableCopies(bookId);
+                return false;
+            });
+            if (!Boolean.TRUE.equals(allocated)) {
+                return;
+            }
+        }
+    }
+
+    private Integer positionOf(Long bookId, Hold hold) {
+        if (hold.getStatus() != HoldStatus.WAITING) {
+            return null;
+        }
+        return (int) holdRepository.countByBookIdAndStatusAndIdLessThanEqual(bookId, HoldStatus.WAITING, hold.getId());
+    }
+
+    private void mayHaveQueue(Long bookId) {
+        queueHints.put(bookId, hintStamps.incrementAndGet());
+    }
+}
@@ -15,10 +15,12 @@ public class MemberService {
     @Autowired
     private MemberRepository memberRepository;
 
+    @Transactional(readOnly = true)
     public List<Member> getAllMembers() {
         return memberRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Optional<Member> getMemberById(Long id) {
         return memberRepository.findById(id);
     }
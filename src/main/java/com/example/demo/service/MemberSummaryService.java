@@ -0,0 +1,90 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.MemberSummary;
+import com.example.demo.repository.TransactionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-member circulation totals from one aggregate query, cached until the member borrows or returns
+ * a book. A summary computed while an eviction happened is not cached, since it may predate the change.
+ * Overdue counts depend on the date, so an entry computed on an earlier day is never served.
+ * The cache is local to this instance; ttl-ms bounds how long another instance's change can go unseen.
+ * Reads go to the primary: a lagging replica could return pre-borrow totals that would then be cached for
+ * the whole TTL.
+ */
+@Service
+@Transactional
+public class MemberSummaryService {
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Value("${member.summary.cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${member.summary.cache.max-size:10000}")
+    private long maxSize;
+
+    private Cache<Long, MemberSummary> summaries;
+
+    // Moved by every eviction; a summary is only cached if its member's generation didn't move while it was computed
+    private final Map<Long, Long> generations = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        summaries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .build();
+    }
+
+    public Optional<MemberSummary> getSummary(Long memberId) {
+        LocalDate today = LocalDate.now();
+        MemberSummary cached = summaries.getIfPresent(memberId);
+        if (cached != null && cached.getAsOf().equals(today)) {
+            return Optional.of(cached);
+        }
+        long generation = generations.getOrDefault(memberId, 0L);
+        Optional<MemberSummary> summary = transactionRepository.summarizeMember(memberId, today);
+        // Checked and stored in one step on the entry, so an eviction can't fall between the two
+        summary.ifPresent(value -> summaries.asMap().compute(memberId, (id, current) ->
+                generations.getOrDefault(id, 0L) == generation ? value : current));
+        return summary;
+    }
+
+    /**
+     * Drops the member's entry now and again once the surrounding transaction completes, so a summary
+     * read concurrently from pre-commit data doesn't stay cached.
+     */
+    public void evict(Long memberId) {
+        invalidate(memberId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(memberId);
+                }
+            });
+        }
+    }
+
+    private void invalidate(Long memberId) {
+        summaries.asMap().compute(memberId, (id, current) -> {
+            generations.merge(id, 1L, Long::sum);
+            return null;
+        });
+    }
+}
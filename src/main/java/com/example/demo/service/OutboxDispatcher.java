@@ -0,0 +1,357 @@
+package com.example.demo.service;
+
+import com.example.demo.event.BookBorrowed;
+import com.example.demo.event.BookReturned;
+import com.example.demo.event.BookRemoved;
+import com.example.demo.event.BookUpdated;
+import com.example.demo.event.DomainEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Delivers outbox events to in-process {@code @EventListener}s. One poller claims undelivered events in
+ * batches and hands each to a worker chosen by book id, so a book's events are delivered one at a time
+ * and in book_seq (commit) order while different books proceed in parallel. Worker queues are bounded:
+ * when listeners fall behind the poller blocks instead of claiming further, and the time it spends blocked
+ * is exported as backpressure. Events are marked dispatched only after delivery, so a crash means
+ * redelivery, not loss.
+ * <p>
+ * Instances sharing the database split the events between them: an instance claims a run of a book's
+ * events (FOR UPDATE SKIP LOCKED, then a lease in claimed_by/claimed_until) and no other instance takes
+ * that book's later events until those are delivered or the lease lapses. Each event therefore reaches
+ * the listeners of one instance only, which suits listeners like CirculationMetrics that count every
+ * borrow and return once across the cluster. Anything every instance must see, such as the availability
+ * feed, follows BookCacheInvalidator instead.
+ */
+@Component
+public class OutboxDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private static final Map<String, Class<? extends DomainEvent>> EVENT_TYPES = Map.of(
+            BookBorrowed.class.getSimpleName(), BookBorrowed.class,
+            BookReturned.class.getSimpleName(), BookReturned.class,
+            BookUpdated.class.getSimpleName(), BookUpdated.class,
+            BookRemoved.class.getSimpleName(), BookRemoved.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${outbox.workers:4}")
+    private int workers;
+
+    @Value("${outbox.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${outbox.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${outbox.retention-days:7}")
+    private int retentionDays;
+
+    @Value("${outbox.lease-ms:60000}")
+    private long leaseMs;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private record Entry(long id, long bookId, long bookSeq, String type, String payload, LocalDateTime createdAt) {
+    }
+
+    private record Candidate(Entry entry, long firstPending) {
+    }
+
+    // Names this instance's claims in the table
+    private final String instanceId = UUID.randomUUID().toString();
+
+    // Claimed but not yet marked dispatched
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    // Per book, the last event handed to a worker while it still has events in flight; the book's next claim
+    // continues from there. Poller thread only
+    private final Map<Long, Long> claimedThrough = new HashMap<>();
+
+    // Marked (or failed to mark) by a worker; the poller releases them before its next claim
+    private final Queue<Entry> settled = new ConcurrentLinkedQueue<>();
+
+    private TransactionTemplate claims;
+
+    private final List<BlockingQueue<Entry>> partitions = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile Thread poller;
+    private volatile boolean running;
+
+    private Counter dispatched;
+    private Counter failed;
+    private Timer lag;
+    private Timer backpressure;
+
+    @PostConstruct
+    public void init() {
+        claims = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < workers; i++) {
+            partitions.add(new ArrayBlockingQueue<>(queueCapacity));
+        }
+        dispatched = Counter.builder("outbox.events.dispatched")
+                .description("Domain events delivered to every listener")
+                .register(meterRegistry);
+        failed = Counter.builder("outbox.events.failed")
+                .description("Domain events given up on after outbox.max-attempts deliveries")
+                .register(meterRegistry);
+        lag = Timer.builder("outbox.dispatch.lag")
+                .description("Time from publishing an event to delivering it")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        backpressure = Timer.builder("outbox.backpressure")
+                .description("Time the poller waited for room in a full worker queue")
+                .register(meterRegistry);
+        Gauge.builder("outbox.queue.depth", this, OutboxDispatcher::queued)
+                .description("Events read from the outbox and waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("outbox.in.flight", inFlight, Set::size)
+                .description("Events read from the outbox and not yet marked dispatched")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            BlockingQueue<Entry> partition = partitions.get(i);
+            threads.add(startThread("outbox-worker-" + (i + 1), () -> work(partition)));
+        }
+        poller = startThread("outbox-poller", this::poll);
+        threads.add(poller);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        threads.forEach(Thread::interrupt);
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    void wake() {
+        Thread thread = poller;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private Thread startThread(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private void poll() {
+        while (running) {
+            try {
+                for (Entry entry; (entry = settled.poll()) != null; ) {
+                    inFlight.remove(entry.id());
+                    claimedThrough.remove(entry.bookId(), entry.bookSeq());
+                }
+                List<Candidate> candidates = new ArrayList<>();
+                List<Entry> claimed = claims.execute(status -> claim(candidates));
+                for (Entry entry : claimed) {
+                    inFlight.add(entry.id());
+                    claimedThrough.put(entry.bookId(), entry.bookSeq());
+                    enqueue(entry);
+                }
+                if (candidates.size() < batchSize || claimed.isEmpty()) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(pollIntervalMs));
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                logger.warn("Outbox poll failed: {}", e.getMessage());
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(pollIntervalMs));
+            }
+        }
+    }
+
+    /**
+     * Locks up to a batch of unclaimed events, skipping rows another instance is claiming right now and books
+     * another instance holds a live claim on, then leases the ones that continue their book without a gap.
+     * A gap means an earlier event is elsewhere (a concurrent claim skipped it); the book waits for a later poll.
+     */
+    private List<Entry> claim(List<Candidate> candidates) {
+        LocalDateTime now = LocalDateTime.now();
+        candidates.addAll(jdbcTemplate.query(
+                "SELECT e.id, e.book_id, e.book_seq, e.event_type, e.payload, e.created_at, " +
+                        "(SELECT MIN(p.book_seq) FROM outbox_events p " +
+                        "WHERE p.book_id = e.book_id AND p.dispatched_at IS NULL) AS first_pending " +
+                        "FROM outbox_events e WHERE e.dispatched_at IS NULL " +
+                        "AND (e.claimed_until IS NULL OR e.claimed_until < ?) " +
+                        "AND NOT EXISTS (SELECT 1 FROM outbox_events c WHERE c.book_id = e.book_id " +
+                        "AND c.dispatched_at IS NULL AND c.claimed_by <> ? AND c.claimed_until >= ?) " +
+                        "ORDER BY e.book_id, e.book_seq LIMIT ? FOR UPDATE SKIP LOCKED",
+                (rs, rowNum) -> new Candidate(new Entry(rs.getLong("id"), rs.getLong("book_id"), rs.getLong("book_seq"),
+                        rs.getString("event_type"), rs.getString("payload"),
+                        rs.getObject("created_at", LocalDateTime.class)), rs.getLong("first_pending")),
+                now, instanceId, now, batchSize));
+
+        Map<Long, Long> next = new HashMap<>();
+        List<Entry> claimed = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            Entry entry = candidate.entry();
+            long expected = next.computeIfAbsent(entry.bookId(), bookId -> claimedThrough.containsKey(bookId)
+                    ? claimedThrough.get(bookId) + 1 : candidate.firstPending());
+            if (entry.bookSeq() == expected) {
+                next.put(entry.bookId(), expected + 1);
+                claimed.add(entry);
+            }
+        }
+        LocalDateTime until = now.plus(Duration.ofMillis(leaseMs));
+        jdbcTemplate.batchUpdate("UPDATE outbox_events SET claimed_by = ?, claimed_until = ? WHERE id = ?",
+                claimed.stream().map(entry -> new Object[]{instanceId, until, entry.id()}).toList());
+        return claimed;
+    }
+
+    private void enqueue(Entry entry) throws InterruptedException {
+        BlockingQueue<Entry> partition = partitions.get(Math.floorMod(Long.hashCode(entry.bookId()), workers));
+        if (!partition.offer(entry)) {
+            long start = System.nanoTime();
+            partition.put(entry);
+            backpressure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void work(BlockingQueue<Entry> partition) {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(partition.take());
+                partition.drainTo(batch, batchSize - 1);
+                Map<Long, String> errors = new LinkedHashMap<>();
+                for (Entry entry : batch) {
+                    String error = deliver(entry);
+                    errors.put(entry.id(), error);
+                }
+                markDispatched(errors);
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                settled.addAll(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // Returns null once every listener has taken the event, or why it was given up on
+    private String deliver(Entry entry) throws InterruptedException {
+        Class<? extends DomainEvent> type = EVENT_TYPES.get(entry.type());
+        if (type == null) {
+            failed.increment();
+            logger.error("Outbox event {} has unknown type {}", entry.id(), entry.type());
+            return "unknown event type";
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                eventPublisher.publishEvent(objectMapper.readValue(entry.payload(), type));
+                dispatched.increment();
+                lag.record(Duration.between(entry.createdAt(), LocalDateTime.now()));
+                return null;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    failed.increment();
+                    logger.error("Giving up on outbox event {} ({}) after {} attempts: {}",
+                            entry.id(), entry.type(), attempt, e.getMessage(), e);
+                    String message = String.valueOf(e.getMessage());
+                    return message.length() > 500 ? message.substring(0, 500) : message;
+                }
+                // Later events of the same book wait behind this one, keeping them in order
+                Thread.sleep(100L << Math.min(attempt - 1, 6));
+            }
+        }
+    }
+
+    private void markDispatched(Map<Long, String> errors) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> args = new ArrayList<>(errors.size());
+        errors.forEach((id, error) -> args.add(new Object[]{now, error, id}));
+        try {
+            jdbcTemplate.batchUpdate("UPDATE outbox_events SET dispatched_at = ?, last_error = ? WHERE id = ?", args);
+        } catch (RuntimeException e) {
+            // Still undelivered as far as the table knows; they are read and delivered again
+            logger.warn("Could not mark {} outbox events dispatched: {}", errors.size(), e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${outbox.cleanup.cron:0 30 3 * * *}")
+    public void deleteDispatched() {
+        int deleted = jdbcTemplate.update("DELETE FROM outbox_events WHERE dispatched_at < ?",
+                LocalDateTime.now().minusDays(retentionDays));
+        if (deleted > 0) {
+            logger.info("Deleted {} dispatched outbox events older than {} days", deleted, retentionDays);
+        }
+    }
+
+    private int queued() {
+        return partitions.stream().mapToInt(BlockingQueue::size).sum();
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("pending", jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM outbox_events WHERE dispatched_at IS NULL", Long.class));
+        response.put("inFlight", inFlight.size());
+        response.put("queued", queued());
+        response.put("dispatched", (long) dispatched.count());
+        response.put("failed", (long) failed.count());
+        response.put("backpressureMs", (long) backpressure.totalTime(TimeUnit.MILLISECONDS));
+        response.put("averageLagMs", (long) lag.mean(TimeUnit.MILLISECONDS));
+        return response;
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.TransactionResponse;
+import com.example.demo.model.Transaction;
+import com.example.demo.model.TransactionStatus;
+import com.example.demo.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Overdue loans kept in memory, ordered by due date. Loans enter once their due date has passed
+ * (daily rollover) and leave when they are returned, so reading the report costs O(result)
+ * instead of a scan of the transactions table. Pages are read by a (dueDate, id) cursor, and
+ * per-member, per-book and overall totals are kept as a count plus a sum of due dates, from which
+ * today's fines follow without visiting the loans.
+ */
+@Component
+public class OverdueIndex {
+    private static final Logger logger = LoggerFactory.getLogger(OverdueIndex.class);
+    private static final double FINE_PER_DAY = 1.0;
+
+    private final ConcurrentNavigableMap<Key, TransactionResponse> entries = new ConcurrentSkipListMap<>();
+    private final Map<Long, TransactionResponse> byTransactionId = new ConcurrentHashMap<>();
+    private final Map<Long, Totals> byMember = new ConcurrentHashMap<>();
+    private final Map<Long, Totals> byBook = new ConcurrentHashMap<>();
+    private volatile Totals overall = Totals.EMPTY;
+    private volatile LocalDate coveredUntil;
+
+    private record Key(LocalDate dueDate, long id) implements Comparable<Key> {
+        static Key of(TransactionResponse entry) {
+            return new Key(entry.getDueDate(), entry.getId());
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byDate = dueDate.compareTo(other.dueDate);
+            return byDate != 0 ? byDate : Long.compare(id, other.id);
+        }
+    }
+
+    // Fines are linear in the due date, so a count and a sum of due epoch days are enough to total them
+    private record Totals(Long id, String name, long count, long dueDaySum) {
+        static final Totals EMPTY = new Totals(null, null, 0, 0);
+
+        Totals plus(long dueDay) {
+            return new Totals(id, name, count + 1, dueDaySum + dueDay);
+        }
+
+        Totals minus(long dueDay) {
+            return count == 1 ? null : new Totals(id, name, count - 1, dueDaySum - dueDay);
+        }
+
+        double fines(LocalDate today) {
+            return (count * today.toEpochDay() - dueDaySum) * FINE_PER_DAY;
+        }
+    }
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    // Not read-only, so it runs on the primary: a lagging replica would miss recent borrows and returns
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public synchronized void rebuild() {
+        LocalDate today = LocalDate.now();
+        entries.clear();
+        byTransactionId.clear();
+        byMember.clear();
+        byBook.clear();
+        overall = Totals.EMPTY;
+        transactionRepository.findOverdueTransactions(TransactionStatus.BORROWED, today)
+                .forEach(transaction -> add(new TransactionResponse(transaction)));
+        coveredUntil = today;
+        logger.info("Overdue index loaded with {} loans", byTransactionId.size());
+    }
+
+    // Just after midnight: pull in loans that became overdue and drop any returned on another instance.
+    // Reads the primary for the same reason as rebuild
+    @Scheduled(cron = "${overdue.rollover.cron:0 5 0 * * *}")
+    @Transactional
+    public synchronized void rollover() {
+        LocalDate today = LocalDate.now();
+        if (coveredUntil == null) {
+            rebuild();
+            return;
+        }
+        if (today.isAfter(coveredUntil)) {
+            transactionRepository.findBorrowedDueBetween(coveredUntil, today)
+                    .forEach(transaction -> add(new TransactionResponse(transaction)));
+            coveredUntil = today;
+        }
+
+        List<Long> ids = new ArrayList<>(byTransactionId.keySet());
+        for (int from = 0; from < ids.size(); from += 1000) {
+            transactionRepository.findClosedIds(ids.subList(from, Math.min(from + 1000, ids.size())))
+                    .forEach(this::removeLoan);
+        }
+        logger.info("Overdue index rolled over to {} with {} loans", today, byTransactionId.size());
+    }
+
+    // Applied once the surrounding transaction commits: a rolled-back borrow or return leaves the index as it was.
+    // The entry is built now, while the loan's book and member can still be loaded
+    public void onBorrowed(Transaction transaction) {
+        if (transaction.getDueDate().isBefore(LocalDate.now())) {
+            TransactionResponse entry = new TransactionResponse(transaction);
+            afterCommit(() -> add(entry));
+        }
+    }
+
+    public void onReturned(Long transactionId) {
+        afterCommit(() -> removeLoan(transactionId));
+    }
+
+    public int size() {
+        return byTransactionId.size();
+    }
+
+    // Loans due after the cursor, oldest first; a null cursor starts from the beginning
+    public List<TransactionResponse> page(LocalDate afterDueDate, Long afterId, int size) {
+        Map<Key, TransactionResponse> from = afterDueDate == null ? entries
+                : entries.tailMap(new Key(afterDueDate, afterId == null ? Long.MAX_VALUE : afterId), false);
+        List<TransactionResponse> result = new ArrayList<>(size);
+        for (TransactionResponse entry : from.values()) {
+            if (result.size() == size) {
+                break;
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    public double totalFines() {
+        return overall.fines(LocalDate.now());
+    }
+
+    public List<Map<String, Object>> groupByMember() {
+        return groups(byMember);
+    }
+
+    public List<Map<String, Object>> groupByBook() {
+        return groups(byBook);
+    }
+
+    private List<Map<String, Object>> groups(Map<Long, Totals> totals) {
+        LocalDate today = LocalDate.now();
+        List<Totals> sorted = new ArrayList<>(totals.values());
+        sorted.sort(Comparator.comparingLong(Totals::count).reversed());
+        List<Map<String, Object>> result = new ArrayList<>(sorted.size());
+        for (Totals group : sorted) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", group.id());
+            row.put("name", group.name());
+            row.put("overdueCount", group.count());
+            row.put("totalFines", group.fines(today));
+            result.add(row);
+        }
+        return result;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private synchronized void add(TransactionResponse entry) {
+        TransactionResponse previous = byTransactionId.put(entry.getId(), entry);
+        if (previous != null) {
+            remove(previous);
+        }
+        entries.put(Key.of(entry), entry);
+        long dueDay = entry.getDueDate().toEpochDay();
+        String memberName = entry.getMember().getFirstName() + " " + entry.getMember().getLastName();
+        byMember.compute(entry.getMember().getId(), (id, totals) ->
+                (totals == null ? new Totals(id, memberName, 0, 0) : totals).plus(dueDay));
+        byBook.compute(entry.getBook().getId(), (id, totals) ->
+                (totals == null ? new Totals(id, entry.getBook().getTitle(), 0, 0) : totals).plus(dueDay));
+        overall = overall.plus(dueDay);
+    }
+
+    private synchronized void removeLoan(Long transactionId) {
+        TransactionResponse entry = byTransactionId.remove(transactionId);
+        if (entry != null) {
+            remove(entry);
+        }
+    }
+
+    private void remove(TransactionResponse entry) {
+        entries.remove(Key.of(entry));
+        long dueDay = entry.getDueDate().toEpochDay();
+        byMember.computeIfPresent(entry.getMember().getId(), (id, totals) -> totals.minus(dueDay));
+        byBook.computeIfPresent(entry.getBook().getId(), (id, totals) -> totals.minus(dueDay));
+        Totals remaining = overall.minus(dueDay);
+        overall = remaining == null ? Totals.EMPTY : remaining;
+    }
+}
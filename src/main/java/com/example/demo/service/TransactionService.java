@@ -1,5 +1,10 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.BatchItemResult;
+import com.example.demo.dto.BatchOperationResponse;
+import com.example.demo.dto.TransactionResponse;
+import com.example.demo.event.BookBorrowed;
+import com.example.demo.event.BookReturned;
 import com.example.demo.model.Book;
 import com.example.demo.model.Member;
 import com.example.demo.model.Transaction;
@@ -7,16 +12,34 @@ import com.example.demo.model.TransactionStatus;
 import com.example.demo.repository.BookRepository;
 import com.example.demo.repository.MemberRepository;
 import com.example.demo.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class TransactionService {
+    // Export bounds when the caller leaves the range open; both are valid PostgreSQL dates
+    private static final LocalDate EARLIEST_BORROW_DATE = LocalDate.of(1, 1, 1);
+    private static final LocalDate LATEST_BORROW_DATE = LocalDate.of(9999, 12, 31);
+
     @Autowired
     private TransactionRepository transactionRepository;
 
@@ -26,35 +49,80 @@ public class TransactionService {
     @Autowired
     private MemberRepository memberRepository;
 
-    public List<Transaction> getAllTransactions() {
-        return transactionRepository.findAll();
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OverdueIndex overdueIndex;
+
+    @Autowired
+    private DomainEventPublisher eventPublisher;
+
+    @Autowired
+    private MemberSummaryService memberSummaryService;
+
+    @Autowired
+    private HoldService holdService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public List<TransactionResponse> getAllTransactions() {
+        return toResponses(transactionRepository.findAll());
+    }
+
+    @Transactional(readOnly = true)
+    public void forEachTransaction(LocalDate from, LocalDate to, Consumer<Transaction> consumer) {
+        try (Stream<Transaction> transactions = transactionRepository.streamByBorrowDateBetween(
+                from == null ? EARLIEST_BORROW_DATE : from, to == null ? LATEST_BORROW_DATE : to)) {
+            transactions.forEach(transaction -> {
+                consumer.accept(transaction);
+                // Keep the persistence context from growing with the history
+                entityManager.detach(transaction);
+                entityManager.detach(transaction.getBook());
+                entityManager.detach(transaction.getMember());
+            });
+        }
     }
 
-    public Transaction getTransactionById(Long id) {
-        return transactionRepository.findById(id)
+    @Transactional(readOnly = true)
+    public TransactionResponse getTransactionById(Long id) {
+        return transactionRepository.findWithDetailsById(id)
+                .map(TransactionResponse::new)
                 .orElseThrow(() -> new RuntimeException("Transaction not found with id: " + id));
     }
 
     public Transaction borrowBook(Long bookId, Long memberId) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new RuntimeException("Book not found with id: " + bookId));
-
         Member member = memberRepository.findById(memberId)
                 .orElseThrow(() -> new RuntimeException("Member not found with id: " + memberId));
 
-        if (book.getAvailableCopies() <= 0) {
-            throw new RuntimeException("No available copies of this book");
-        }
-
         if (!member.getIsActive()) {
             throw new RuntimeException("Member is not active");
         }
 
-        Transaction transaction = new Transaction(book, member);
-        book.setAvailableCopies(book.getAvailableCopies() - 1);
-        bookRepository.save(book);
+        // Copies of a title with a queue go to its holders as they come back
+        if (holdService.hasWaitingHolds(bookId)) {
+            throw new RuntimeException("Book is reserved for members with holds");
+        }
 
-        return transactionRepository.save(transaction);
+        // Take the copy with one conditional UPDATE instead of read-check-write on the entity
+        if (bookRepository.decrementAvailableCopies(bookId) == 0) {
+            if (!bookRepository.existsById(bookId)) {
+                throw new RuntimeException("Book not found with id: " + bookId);
+            }
+            throw new RuntimeException("No available copies of this book");
+        }
+
+        Book book = bookRepository.findById(bookId)
+                .orElseThrow(() -> new RuntimeException("Book not found with id: " + bookId));
+
+        Transaction transaction = transactionRepository.save(new Transaction(book, member));
+        overdueIndex.onBorrowed(transaction);
+        memberSummaryService.evict(memberId);
+        eventPublisher.publish(new BookBorrowed(bookId, memberId, transaction.getId(), transaction.getDueDate(),
+                LocalDateTime.now()));
+        return transaction;
     }
 
     public Transaction returnBook(Long transactionId) {
@@ -65,32 +133,166 @@ public class TransactionService {
             throw new RuntimeException("Book already returned");
         }
 
-        Book book = transaction.getBook();
-        book.setAvailableCopies(book.getAvailableCopies() + 1);
-        bookRepository.save(book);
-
-        transaction.setReturnDate(LocalDate.now());
-        transaction.setStatus(TransactionStatus.RETURNED);
+        LocalDate today = LocalDate.now();
+        Double fineAmount = null;
 
         // Calculate fine if overdue
-        if (transaction.getDueDate().isBefore(LocalDate.now())) {
-            long daysOverdue = LocalDate.now().toEpochDay() - transaction.getDueDate().toEpochDay();
-            transaction.setFineAmount(daysOverdue * 1.0); // $1 per day
+        if (transaction.getDueDate().isBefore(today)) {
+            long daysOverdue = today.toEpochDay() - transaction.getDueDate().toEpochDay();
+            fineAmount = daysOverdue * 1.0; // $1 per day
+        }
+
+        Long bookId = transaction.getBook().getId();
+        if (transactionRepository.markReturned(transactionId, today, fineAmount) == 0) {
+            throw new RuntimeException("Book already returned");
+        }
+        Long memberId = transaction.getMember().getId();
+        // Published before a waiting hold can turn the copy into a new loan, so listeners see return then borrow
+        eventPublisher.publish(new BookReturned(bookId, memberId, transactionId, fineAmount, LocalDateTime.now()));
+        if (holdService.allocateReturnedCopies(bookId, 1) > 0) {
+            bookRepository.incrementAvailableCopies(bookId);
+        }
+        overdueIndex.onReturned(transactionId);
+        memberSummaryService.evict(memberId);
+
+        return transactionRepository.findWithDetailsById(transactionId)
+                .orElseThrow(() -> new RuntimeException("Transaction not found with id: " + transactionId));
+    }
+
+    // All loans share one transaction; their INSERTs are flushed together as a JDBC batch at commit
+    public BatchOperationResponse borrowBooks(Long memberId, List<Long> bookIds) {
+        Member member = memberRepository.findById(memberId)
+                .orElseThrow(() -> new RuntimeException("Member not found with id: " + memberId));
+
+        if (!member.getIsActive()) {
+            throw new RuntimeException("Member is not active");
+        }
+
+        List<BatchItemResult> results = new ArrayList<>();
+        for (Long bookId : bookIds) {
+            if (holdService.hasWaitingHolds(bookId)) {
+                results.add(BatchItemResult.failed(bookId, "Book is reserved for members with holds"));
+                continue;
+            }
+            if (bookRepository.decrementAvailableCopies(bookId) == 0) {
+                results.add(BatchItemResult.failed(bookId, bookRepository.existsById(bookId)
+                        ? "No available copies of this book" : "Book not found with id: " + bookId));
+                continue;
+            }
+            Transaction transaction = transactionRepository.save(
+                    new Transaction(bookRepository.getReferenceById(bookId), member));
+            results.add(BatchItemResult.succeeded(bookId, transaction.getId()));
+            eventPublisher.publish(new BookBorrowed(bookId, memberId, transaction.getId(), transaction.getDueDate(),
+                    LocalDateTime.now()));
         }
+        BatchOperationResponse response = new BatchOperationResponse(results);
+        if (response.getSucceeded() > 0) {
+            memberSummaryService.evict(memberId);
+        }
+        return response;
+    }
+
+    public BatchOperationResponse returnBooks(List<Long> transactionIds) {
+        Map<Long, Transaction> loans = transactionRepository.findAllById(transactionIds).stream()
+                .collect(Collectors.toMap(Transaction::getId, Function.identity()));
+        LocalDate today = LocalDate.now();
+
+        List<BatchItemResult> results = new ArrayList<>();
+        List<Integer> candidates = new ArrayList<>();
+        List<Object[]> returnArgs = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (Long transactionId : transactionIds) {
+            Transaction transaction = loans.get(transactionId);
+            if (transaction == null) {
+                results.add(BatchItemResult.failed(transactionId, "Transaction not found with id: " + transactionId));
+            } else if (transaction.getStatus() == TransactionStatus.RETURNED || !seen.add(transactionId)) {
+                results.add(BatchItemResult.failed(transactionId, "Book already returned"));
+            } else {
+                Double fineAmount = null;
+                if (transaction.getDueDate().isBefore(today)) {
+                    fineAmount = (today.toEpochDay() - transaction.getDueDate().toEpochDay()) * 1.0; // $1 per day
+                }
+                candidates.add(results.size());
+                results.add(BatchItemResult.succeeded(transactionId, transactionId));
+                returnArgs.add(new Object[]{today, fineAmount, transactionId});
+            }
+        }
+        if (candidates.isEmpty()) {
+            return new BatchOperationResponse(results);
+        }
+
+        // The loans still open are locked before the batch, so every UPDATE below is ours. Batch row counts
+        // can't decide that: a driver may report SUCCESS_NO_INFO for a row that a concurrent return had closed
+        Set<Long> open = lockOpenLoans(returnArgs.stream().map(args -> (Long) args[2]).toList());
+        List<Object[]> winnerArgs = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            Long transactionId = (Long) returnArgs.get(i)[2];
+            if (open.contains(transactionId)) {
+                winnerArgs.add(returnArgs.get(i));
+            } else {
+                results.set(candidates.get(i), BatchItemResult.failed(transactionId, "Book already returned"));
+            }
+        }
+        jdbcTemplate.batchUpdate("UPDATE transactions SET status = 'RETURNED', return_date = ?, fine_amount = ? " +
+                "WHERE id = ?", winnerArgs);
+
+        Map<Long, Integer> copiesByBook = new LinkedHashMap<>();
+        List<BookReturned> returned = new ArrayList<>(winnerArgs.size());
+        for (Object[] args : winnerArgs) {
+            Long transactionId = (Long) args[2];
+            Transaction transaction = loans.get(transactionId);
+            Long bookId = transaction.getBook().getId();
+            copiesByBook.merge(bookId, 1, Integer::sum);
+            overdueIndex.onReturned(transactionId);
+            memberSummaryService.evict(transaction.getMember().getId());
+            returned.add(new BookReturned(bookId, transaction.getMember().getId(), transactionId,
+                    (Double) args[1], LocalDateTime.now()));
+        }
+        // Before the holds below turn copies into new loans, so listeners see each return before that borrow
+        eventPublisher.publishAll(returned);
+        Map<Long, Integer> shelvedByBook = new LinkedHashMap<>();
+        copiesByBook.forEach((bookId, copies) -> {
+            int shelved = holdService.allocateReturnedCopies(bookId, copies);
+            if (shelved > 0) {
+                shelvedByBook.put(bookId, shelved);
+            }
+        });
+        bookRepository.addAvailableCopies(shelvedByBook);
+
+        return new BatchOperationResponse(results);
+    }
+
+    // Row locks held until commit, taken in id order so overlapping batches can't deadlock; a loan a
+    // concurrent return already closed is left out
+    private Set<Long> lockOpenLoans(List<Long> ids) {
+        List<Long> transactionIds = ids.stream().sorted().toList();
+        Set<Long> open = new HashSet<>();
+        for (int from = 0; from < transactionIds.size(); from += 1000) {
+            List<Long> chunk = transactionIds.subList(from, Math.min(from + 1000, transactionIds.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            open.addAll(jdbcTemplate.queryForList("SELECT id FROM transactions WHERE id IN (" + placeholders + ") " +
+                    "AND status <> 'RETURNED' ORDER BY id FOR UPDATE", Long.class, chunk.toArray()));
+        }
+        return open;
+    }
 
-        return transactionRepository.save(transaction);
+    @Transactional(readOnly = true)
+    public List<TransactionResponse> getTransactionsByMember(Long memberId) {
+        return toResponses(transactionRepository.findByMemberId(memberId));
     }
 
-    public List<Transaction> getTransactionsByMember(Long memberId) {
-        return transactionRepository.findByMemberId(memberId);
+    @Transactional(readOnly = true)
+    public List<TransactionResponse> getOverdueBooks() {
+        return toResponses(transactionRepository.findOverdueTransactions(TransactionStatus.BORROWED, LocalDate.now()));
     }
 
-    public List<Transaction> getOverdueBooks() {
-        return transactionRepository.findOverdueTransactions(TransactionStatus.BORROWED, LocalDate.now());
+    @Transactional(readOnly = true)
+    public List<TransactionResponse> getActiveBorrowsByMember(Long memberId) {
+        return toResponses(transactionRepository.findActiveBorrowsByMember(memberId));
     }
 
-    public List<Transaction> getActiveBorrowsByMember(Long memberId) {
-        return transactionRepository.findActiveBorrowsByMember(memberId);
+    private List<TransactionResponse> toResponses(List<Transaction> transactions) {
+        return transactions.stream().map(TransactionResponse::new).collect(Collectors.toList());
     }
 }
 
@@ -0,0 +1,58 @@
+-- Schema as previously generated by hibernate ddl-auto=update.
+-- Existing databases are baselined at this version and only receive later migrations.
+
+CREATE TABLE roles (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(20) CHECK (name IN ('ROLE_ADMIN', 'ROLE_LIBRARIAN', 'ROLE_MEMBER'))
+);
+
+CREATE TABLE users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(50) UNIQUE,
+    email VARCHAR(100) UNIQUE,
+    password VARCHAR(120)
+);
+
+CREATE TABLE user_roles (
+    user_id BIGINT NOT NULL REFERENCES users (id),
+    role_id BIGINT NOT NULL REFERENCES roles (id),
+    PRIMARY KEY (user_id, role_id)
+);
+
+CREATE TABLE members (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    first_name VARCHAR(255) NOT NULL,
+    last_name VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL UNIQUE,
+    phone_number VARCHAR(255) NOT NULL,
+    date_of_birth DATE NOT NULL,
+    address VARCHAR(255),
+    membership_start_date DATE,
+    is_active BOOLEAN,
+    user_id BIGINT UNIQUE REFERENCES users (id)
+);
+
+CREATE TABLE books (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title VARCHAR(255) NOT NULL,
+    author VARCHAR(255) NOT NULL,
+    isbn VARCHAR(255),
+    total_copies INTEGER NOT NULL,
+    available_copies INTEGER NOT NULL,
+    publisher VARCHAR(255),
+    publication_date DATE,
+    category VARCHAR(255)
+);
+
+CREATE TABLE transactions (
+    id BIGINT NOT NULL PRIMARY KEY,
+    book_id BIGINT NOT NULL REFERENCES books (id),
+    member_id BIGINT NOT NULL REFERENCES members (id),
+    borrow_date DATE NOT NULL,
+    return_date DATE,
+    due_date DATE,
+    status VARCHAR(255) NOT NULL CHECK (status IN ('BORROWED', 'RETURNED', 'OVERDUE')),
+    fine_amount DOUBLE PRECISION
+);
+
+CREATE SEQUENCE transactions_seq START WITH 1 INCREMENT BY 50;
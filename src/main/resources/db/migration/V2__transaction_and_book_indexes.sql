@@ -0,0 +1,26 @@
+-- Databases created by ddl-auto before transactions moved to sequence ids may lack the sequence,
+-- and their identity-generated ids must not collide with it.
+CREATE SEQUENCE IF NOT EXISTS transactions_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('transactions_seq', GREATEST((SELECT COALESCE(MAX(id), 1) FROM transactions),
+                                           (SELECT last_value FROM transactions_seq)));
+
+-- findByMemberId, findActiveBorrowsByMember
+CREATE INDEX IF NOT EXISTS idx_transactions_member_status ON transactions (member_id, status);
+
+-- findByBookId
+CREATE INDEX IF NOT EXISTS idx_transactions_book_id ON transactions (book_id);
+
+-- findOverdueTransactions, findBorrowedDueBetween: only open loans are ever filtered by due date
+CREATE INDEX IF NOT EXISTS idx_transactions_borrowed_due_date ON transactions (status, due_date)
+    WHERE status = 'BORROWED';
+
+-- findByIsbn, findByCategory
+CREATE INDEX IF NOT EXISTS idx_books_isbn ON books (isbn);
+CREATE INDEX IF NOT EXISTS idx_books_category ON books (category);
+
+-- Keyset pages sorted by title
+CREATE INDEX IF NOT EXISTS idx_books_title_id ON books (title, id);
+
+-- Full-text search; the expression must match BookRepository.SEARCH_VECTOR exactly
+CREATE INDEX IF NOT EXISTS idx_books_search ON books USING gin (
+    to_tsvector('simple', coalesce(title, '') || ' ' || coalesce(author, '') || ' ' || replace(coalesce(isbn, ''), '-', '')));
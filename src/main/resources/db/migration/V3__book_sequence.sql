@@ -0,0 +1,5 @@
+-- Books move from identity to sequence ids so bulk imports can batch their INSERTs.
+-- The sequence starts past every id the identity column has already handed out.
+CREATE SEQUENCE IF NOT EXISTS books_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('books_seq', GREATEST((SELECT COALESCE(MAX(id), 1) FROM books),
+                                    (SELECT last_value FROM books_seq)));
@@ -0,0 +1,2 @@
+-- streamByBorrowDateBetween: exports walk a borrow-date range in (borrow_date, id) order straight off the index
+CREATE INDEX IF NOT EXISTS idx_transactions_borrow_date_id ON transactions (borrow_date, id);
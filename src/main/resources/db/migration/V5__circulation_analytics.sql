@@ -0,0 +1,39 @@
+-- Daily summary tables for the circulation analytics, filled by AnalyticsRollup.
+-- Dashboards read these instead of scanning transactions.
+
+CREATE TABLE daily_book_stats (
+    stat_date DATE NOT NULL,
+    book_id BIGINT NOT NULL,
+    borrows INTEGER NOT NULL,
+    returned INTEGER NOT NULL,
+    loaned_copies INTEGER NOT NULL,
+    total_copies INTEGER NOT NULL,
+    PRIMARY KEY (stat_date, book_id)
+);
+
+-- Utilization history of one book
+CREATE INDEX idx_daily_book_stats_book ON daily_book_stats (book_id, stat_date);
+
+CREATE TABLE daily_category_stats (
+    stat_date DATE NOT NULL,
+    category VARCHAR(255) NOT NULL,
+    borrows INTEGER NOT NULL,
+    PRIMARY KEY (stat_date, category)
+);
+
+CREATE TABLE daily_member_stats (
+    stat_date DATE NOT NULL,
+    member_id BIGINT NOT NULL,
+    borrows INTEGER NOT NULL,
+    returned INTEGER NOT NULL,
+    PRIMARY KEY (stat_date, member_id)
+);
+
+CREATE TABLE analytics_rollup_days (
+    stat_date DATE NOT NULL PRIMARY KEY,
+    closed BOOLEAN NOT NULL,
+    rolled_up_at TIMESTAMP NOT NULL
+);
+
+-- The rollup reads one day of returns at a time
+CREATE INDEX IF NOT EXISTS idx_transactions_return_date ON transactions (return_date);
@@ -0,0 +1,18 @@
+-- Hold (reservation) queue: a returned copy goes to the oldest WAITING hold on the book
+CREATE SEQUENCE holds_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE holds (
+    id BIGINT NOT NULL PRIMARY KEY,
+    book_id BIGINT NOT NULL REFERENCES books (id),
+    member_id BIGINT NOT NULL REFERENCES members (id),
+    status VARCHAR(255) NOT NULL CHECK (status IN ('WAITING', 'FULFILLED', 'CANCELLED')),
+    created_at TIMESTAMP NOT NULL,
+    closed_at TIMESTAMP,
+    transaction_id BIGINT REFERENCES transactions (id)
+);
+
+-- A book's queue in order (findByBookIdAndStatusOrderByIdAsc, findWaitingQueueEntries)
+CREATE INDEX idx_holds_book_status ON holds (book_id, status, id);
+
+-- A member can wait only once per book
+CREATE UNIQUE INDEX idx_holds_one_waiting_per_member ON holds (book_id, member_id) WHERE status = 'WAITING';
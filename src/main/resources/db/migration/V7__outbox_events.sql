@@ -0,0 +1,18 @@
+-- Transactional outbox: domain events written with the change that caused them, delivered afterwards
+CREATE SEQUENCE outbox_events_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE outbox_events (
+    id BIGINT NOT NULL PRIMARY KEY,
+    book_id BIGINT NOT NULL,
+    event_type VARCHAR(100) NOT NULL,
+    payload VARCHAR(2000) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    dispatched_at TIMESTAMP,
+    last_error VARCHAR(500)
+);
+
+-- The dispatcher only ever reads undelivered events, oldest first
+CREATE INDEX idx_outbox_events_pending ON outbox_events (id) WHERE dispatched_at IS NULL;
+
+-- Retention cleanup of delivered events
+CREATE INDEX idx_outbox_events_dispatched_at ON outbox_events (dispatched_at);
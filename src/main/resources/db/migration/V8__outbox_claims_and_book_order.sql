@@ -0,0 +1,19 @@
+-- Outbox events are ordered per book by book_seq, taken from books.event_version under the book's row lock,
+-- so a book's events are numbered 1, 2, 3... in commit order. Events already written are numbered by id.
+ALTER TABLE books ADD COLUMN event_version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE outbox_events ADD COLUMN book_seq BIGINT;
+
+UPDATE outbox_events o SET book_seq = numbered.seq
+FROM (SELECT id, ROW_NUMBER() OVER (PARTITION BY book_id ORDER BY id) AS seq FROM outbox_events) numbered
+WHERE numbered.id = o.id;
+UPDATE books b SET event_version = (SELECT COUNT(*) FROM outbox_events o WHERE o.book_id = b.id);
+
+ALTER TABLE outbox_events ALTER COLUMN book_seq SET NOT NULL;
+
+-- An instance claims events before delivering them; the claim lapses at claimed_until if it goes away
+ALTER TABLE outbox_events ADD COLUMN claimed_by VARCHAR(64);
+ALTER TABLE outbox_events ADD COLUMN claimed_until TIMESTAMP;
+
+-- Undelivered events are read book by book, in book_seq order
+DROP INDEX idx_outbox_events_pending;
+CREATE INDEX idx_outbox_events_pending ON outbox_events (book_id, book_seq) WHERE dispatched_at IS NULL;
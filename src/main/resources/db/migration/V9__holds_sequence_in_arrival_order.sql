@@ -0,0 +1,3 @@
+-- The queue is served in id order, so hold ids must follow arrival order across instances; blocks of 50
+-- pre-allocated by each instance would interleave them. Ids handed out so far are all below the next value.
+ALTER SEQUENCE holds_seq INCREMENT BY 1;
@@ -0,0 +1,116 @@
+package com.example.demo;
+
+import com.example.demo.security.AuthenticatedTokenCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Access and refresh tokens: a refresh token is good for one rotation at /api/auth/refresh and nowhere
+ * else, an access token only as a bearer token, and logout revokes both at once.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class AuthTokenFlowTest {
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AuthenticatedTokenCache tokenCache;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void refreshTokenRotatesOnceAndReplayIsRejected() throws Exception {
+        JsonNode tokens = signIn("rotating");
+        String refreshToken = tokens.get("refreshToken").asString();
+
+        HttpResponse<String> rotated = refresh(refreshToken);
+        assertThat(rotated.statusCode()).isEqualTo(200);
+        JsonNode next = objectMapper.readTree(rotated.body());
+        assertThat(next.get("refreshToken").asString()).isNotEqualTo(refreshToken);
+        assertThat(bearer("/api/transactions", next.get("accessToken").asString()).statusCode()).isEqualTo(200);
+
+        assertThat(refresh(refreshToken).statusCode()).isEqualTo(401);
+        // The replacement is unaffected by the replay
+        assertThat(refresh(next.get("refreshToken").asString()).statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    void eachTokenOnlyWorksWhereItBelongs() throws Exception {
+        JsonNode tokens = signIn("separate");
+        String accessToken = tokens.get("accessToken").asString();
+        String refreshToken = tokens.get("refreshToken").asString();
+
+        assertThat(refresh(accessToken).statusCode()).isEqualTo(401);
+        assertThat(bearer("/api/transactions", refreshToken).statusCode()).isEqualTo(401);
+        assertThat(bearer("/api/transactions", accessToken).statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    void logoutRevokesBothTokensAndTheCachedAccessToken() throws Exception {
+        JsonNode tokens = signIn("leaving");
+        String accessToken = tokens.get("accessToken").asString();
+        String refreshToken = tokens.get("refreshToken").asString();
+        assertThat(bearer("/api/transactions", accessToken).statusCode()).isEqualTo(200);
+        assertThat(tokenCache.get(accessToken)).isNotNull();
+
+        HttpResponse<String> logout = client.send(HttpRequest.newBuilder(uri("/api/auth/logout"))
+                .header("Authorization", "Bearer " + accessToken)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(refreshBody(refreshToken)))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(logout.statusCode()).isEqualTo(200);
+
+        assertThat(tokenCache.get(accessToken)).isNull();
+        assertThat(bearer("/api/transactions", accessToken).statusCode()).isEqualTo(401);
+        assertThat(tokenCache.get(accessToken)).isNull();
+        assertThat(refresh(refreshToken).statusCode()).isEqualTo(401);
+    }
+
+    private JsonNode signIn(String username) throws Exception {
+        String credentials = "{\"username\":\"" + username + "\",\"password\":\"secret-password\"}";
+        HttpResponse<String> signup = post("/api/auth/signup",
+                "{\"username\":\"" + username + "\",\"email\":\"" + username + "@example.com\",\"password\":\"secret-password\"}");
+        assertThat(signup.statusCode()).isEqualTo(200);
+        HttpResponse<String> signin = post("/api/auth/signin", credentials);
+        assertThat(signin.statusCode()).isEqualTo(200);
+        return objectMapper.readTree(signin.body());
+    }
+
+    private HttpResponse<String> refresh(String refreshToken) throws Exception {
+        return post("/api/auth/refresh", refreshBody(refreshToken));
+    }
+
+    private String refreshBody(String refreshToken) {
+        return "{\"refreshToken\":\"" + refreshToken + "\"}";
+    }
+
+    private HttpResponse<String> post(String path, String json) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> bearer(String path, String token) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).header("Authorization", "Bearer " + token).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.demo;
+
+import com.example.demo.model.Book;
+import com.example.demo.model.Member;
+import com.example.demo.model.Transaction;
+import com.example.demo.repository.BookRepository;
+import com.example.demo.repository.MemberRepository;
+import com.example.demo.service.BookImportService;
+import com.example.demo.service.BookService;
+import com.example.demo.service.OutboxDispatcher;
+import com.example.demo.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The availability feed of an instance reports the changes made on it even when another instance
+ * delivers the outbox events: here this instance's dispatcher is stopped, so the other one claims them all.
+ */
+// Its own database, shared with the second instance; dirtied because its dispatcher is stopped
+@DirtiesContext
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=" + BookAvailabilityMultiInstanceTest.DATABASE_URL)
+class BookAvailabilityMultiInstanceTest {
+    static final String DATABASE_URL = "jdbc:h2:mem:stream_multi_instance;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+            + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void changesReachThisInstancesSubscribersWhenTheOtherInstanceDeliversTheEvents() throws Exception {
+        // Set up like the second instance in HoldMultiInstanceTest
+        SpringApplicationBuilder otherApplication = new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE);
+        try (ConfigurableApplicationContext otherInstance = otherApplication.run("--spring.datasource.url=" + DATABASE_URL,
+                "--spring.jpa.hibernate.ddl-auto=none", "--outbox.poll-interval-ms=50",
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=false")) {
+            outboxDispatcher.stop();
+            BlockingQueue<String> data = subscribe();
+
+            Book book = bookRepository.save(new Book("Feed Title", "Author", "multi-feed", 3));
+            Member member = memberRepository.save(new Member("Feed", "Reader", "multi-feed@example.com",
+                    "555-0100", LocalDate.of(1990, 1, 1)));
+            Transaction loan = transactionService.borrowBook(book.getId(), member.getId());
+            awaitData(data, "[{\"bookId\":" + book.getId() + ",\"availableCopies\":2}]");
+            transactionService.returnBook(loan.getId());
+            awaitData(data, "[{\"bookId\":" + book.getId() + ",\"availableCopies\":3}]");
+
+            Book created = bookService.createBook(new Book("Created Feed Title", "Author", "multi-feed-created", 4));
+            awaitData(data, "[{\"bookId\":" + created.getId() + ",\"availableCopies\":4}]");
+            bookService.deleteBook(created.getId());
+            awaitData(data, "[{\"bookId\":" + created.getId() + ",\"removed\":true}]");
+
+            String imported = "{\"title\":\"Imported Feed Title\",\"author\":\"Author\",\"isbn\":\"multi-feed-imported\","
+                    + "\"totalCopies\":5}\n";
+            bookImportService.importBooks(new ByteArrayInputStream(imported.getBytes(StandardCharsets.UTF_8)),
+                    BookImportService.formatOf("books.ndjson"));
+            Long importedId = bookRepository.findByIsbn("multi-feed-imported").orElseThrow().getId();
+            awaitData(data, "[{\"bookId\":" + importedId + ",\"availableCopies\":5}]");
+
+            // Every event was delivered, all by the other instance
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (pending() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertThat(pending()).isZero();
+        }
+    }
+
+    private BlockingQueue<String> subscribe() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books/stream")).build();
+        HttpResponse<InputStream> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofInputStream());
+        assertThat(response.statusCode()).isEqualTo(200);
+        BlockingQueue<String> data = new LinkedBlockingQueue<>();
+        Thread reader = new Thread(() -> {
+            try (BufferedReader lines = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = lines.readLine()) != null) {
+                    if (line.startsWith("data:")) {
+                        data.add(line.substring("data:".length()));
+                    }
+                }
+            } catch (Exception e) {
+                // connection closed at the end of the test
+            }
+        });
+        reader.setDaemon(true);
+        reader.start();
+        return data;
+    }
+
+    private static void awaitData(BlockingQueue<String> data, String expected) throws InterruptedException {
+        String next;
+        while ((next = data.poll(10, TimeUnit.SECONDS)) != null) {
+            if (next.equals(expected)) {
+                return;
+            }
+        }
+        throw new AssertionError("Feed never sent " + expected);
+    }
+
+    private long pending() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events WHERE dispatched_at IS NULL", Long.class);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.demo;
+
+import com.example.demo.model.Book;
+import com.example.demo.model.Member;
+import com.example.demo.repository.BookRepository;
+import com.example.demo.repository.MemberRepository;
+import com.example.demo.service.BookService;
+import com.example.demo.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Opens many idle GET /api/books/stream connections, checks they cost no request threads, and that a burst
+ * of borrows reaches a subscriber as one coalesced delta carrying the final count. Created and deleted books
+ * reach it as well.
+ */
+// Its own database: dispatchers of other cached test contexts would otherwise deliver the outbox events
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=jdbc:h2:mem:stream_test;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000")
+class BookAvailabilityStreamTest {
+    private static final int IDLE_SUBSCRIBERS = 500;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Test
+    void idleSubscribersShareOneSenderAndBurstsAreCoalesced() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books/stream")).build();
+        int threadsBefore = Thread.activeCount();
+        List<HttpResponse<InputStream>> subscribers = new ArrayList<>();
+        for (int i = 0; i < IDLE_SUBSCRIBERS; i++) {
+            HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            assertThat(response.statusCode()).isEqualTo(200);
+            subscribers.add(response);
+        }
+        assertThat(Thread.activeCount() - threadsBefore).isLessThan(50);
+
+        BlockingQueue<String> data = new LinkedBlockingQueue<>();
+        Thread reader = new Thread(() -> {
+            try (BufferedReader lines = new BufferedReader(new InputStreamReader(
+                    subscribers.get(IDLE_SUBSCRIBERS - 1).body(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = lines.readLine()) != null) {
+                    if (line.startsWith("data:")) {
+                        data.add(line.substring("data:".length()));
+                    }
+                }
+            } catch (Exception e) {
+                // connection closed at the end of the test
+            }
+        });
+        reader.setDaemon(true);
+        reader.start();
+
+        Book book = bookRepository.save(new Book("Streamed Title", "Author", "stream-burst", 10));
+        Member member = memberRepository.save(new Member("Stream", "Reader", "stream-reader@example.com",
+                "555-0100", LocalDate.of(1990, 1, 1)));
+        for (int i = 0; i < 5; i++) {
+            transactionService.borrowBook(book.getId(), member.getId());
+        }
+
+        // The burst may straddle a coalescing window, but never reaches the subscriber as five messages
+        String last = "[{\"bookId\":" + book.getId() + ",\"availableCopies\":5}]";
+        List<String> received = new ArrayList<>();
+        String delta;
+        while ((delta = data.poll(10, TimeUnit.SECONDS)) != null) {
+            received.add(delta);
+            if (delta.equals(last)) {
+                break;
+            }
+        }
+        assertThat(received).endsWith(last).hasSizeLessThanOrEqualTo(2);
+
+        // Books created and deleted through the service are announced too
+        Book created = bookService.createBook(new Book("Created Title", "Author", "stream-created", 3));
+        assertThat(nextData(data)).isEqualTo("[{\"bookId\":" + created.getId() + ",\"availableCopies\":3}]");
+        bookService.deleteBook(created.getId());
+        assertThat(nextData(data)).isEqualTo("[{\"bookId\":" + created.getId() + ",\"removed\":true}]");
+        subscribers.forEach(subscriber -> {
+            try {
+                subscriber.body().close();
+            } catch (Exception e) {
+                // already closed
+            }
+        });
+    }
+
+    private static String nextData(BlockingQueue<String> data) throws InterruptedException {
+        String next = data.poll(10, TimeUnit.SECONDS);
+        assertThat(next).isNotNull();
+        return next;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.demo;
+
+import com.example.demo.model.Book;
+import com.example.demo.model.Member;
+import com.example.demo.repository.BookRepository;
+import com.example.demo.repository.MemberRepository;
+import com.example.demo.service.TransactionService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Conditional GETs on the catalog: a matching If-None-Match is a 304 that runs no SQL, and a committed
+ * change to a book moves the tags that cover it and only those.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class BookCatalogETagTest {
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void unchangedBookIsNotModifiedWithoutTouchingTheDatabase() throws Exception {
+        Book book = bookRepository.save(new Book("Tagged Title", "Author", "etag-book", 3));
+        HttpResponse<String> first = get("/api/books/" + book.getId(), null);
+        assertThat(first.statusCode()).isEqualTo(200);
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+        assertThat(first.headers().firstValue("Cache-Control").orElseThrow()).contains("no-cache");
+
+        DistributionSummary statements = meterRegistry.get("sql.statements.per.request").summary();
+        long requestsBefore = statements.count();
+        double statementsBefore = statements.totalAmount();
+        HttpResponse<String> revalidated = get("/api/books/" + book.getId(), etag);
+        assertThat(revalidated.statusCode()).isEqualTo(304);
+        assertThat(revalidated.body()).isEmpty();
+        assertThat(revalidated.headers().firstValue("ETag")).contains(etag);
+        // Recorded once the filter chain unwinds, which may be just after the client has the response
+        for (int i = 0; i < 100 && statements.count() == requestsBefore; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(statements.count()).isEqualTo(requestsBefore + 1);
+        assertThat(statements.totalAmount()).isEqualTo(statementsBefore);
+    }
+
+    @Test
+    void committedChangesMoveOnlyTheTagsThatCoverThem() throws Exception {
+        Book borrowed = bookRepository.save(new Book("Borrowed Title", "Author", "etag-borrowed", 2));
+        Book untouched = bookRepository.save(new Book("Untouched Title", "Author", "etag-untouched", 2));
+        Member member = memberRepository.save(new Member("Etag", "Member", "etag-member@example.com", "555-0100",
+                LocalDate.of(1990, 1, 1)));
+
+        String borrowedTag = get("/api/books/" + borrowed.getId(), null).headers().firstValue("ETag").orElseThrow();
+        String untouchedTag = get("/api/books/" + untouched.getId(), null).headers().firstValue("ETag").orElseThrow();
+        String searchTag = get("/api/books/search?keyword=Title", null).headers().firstValue("ETag").orElseThrow();
+        assertThat(get("/api/books/search?keyword=Title", searchTag).statusCode()).isEqualTo(304);
+
+        transactionService.borrowBook(borrowed.getId(), member.getId());
+
+        HttpResponse<String> changed = get("/api/books/" + borrowed.getId(), borrowedTag);
+        assertThat(changed.statusCode()).isEqualTo(200);
+        assertThat(changed.body()).contains("\"availableCopies\":1");
+        assertThat(changed.headers().firstValue("ETag").orElseThrow()).isNotEqualTo(borrowedTag);
+        assertThat(get("/api/books/" + untouched.getId(), untouchedTag).statusCode()).isEqualTo(304);
+        assertThat(get("/api/books/search?keyword=Title", searchTag).statusCode()).isEqualTo(200);
+    }
+
+    private HttpResponse<String> get(String path, String ifNoneMatch) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.demo;
+
+import com.example.demo.config.ReplicaFallbackDataSource;
+import com.example.demo.dto.MemberSummary;
+import com.example.demo.model.Book;
+import com.example.demo.model.Member;
+import com.example.demo.service.BookService;
+import com.example.demo.service.MemberService;
+import com.example.demo.service.MemberSummaryService;
+import com.example.demo.service.TransactionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two local H2 databases stand in for a primary and its read replica. "Replication" is an explicit copy of
+ * the primary, so anything written since the last copy shows which database a read went to.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing_primary;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "app.datasource.replica.url=jdbc:h2:mem:routing_replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "app.datasource.replica.max-lag-ms=1000"})
+class ReadReplicaRoutingTest {
+
+    @TestConfiguration
+    static class ReplicaSeed {
+        // The replica needs the schema Hibernate creates on the primary before anything reads from it
+        @Bean
+        Object replicaSeeded(EntityManagerFactory entityManagerFactory,
+                             @Qualifier("primaryDataSource") DataSource primary,
+                             @Qualifier("replicaDataSource") DataSource replica) {
+            replicate(primary, replica);
+            return new Object();
+        }
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primary;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replica;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private MemberService memberService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private MemberSummaryService memberSummaryService;
+
+    @Test
+    void readOnlyTransactionsRunOnTheReplicaAndEverythingElseOnThePrimary() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        String readOnlyDatabase = readOnly.execute(status -> database(jdbcTemplate));
+        String readWriteDatabase = readWrite.execute(status -> database(jdbcTemplate));
+        assertThat(readOnlyDatabase).isEqualTo("routing_replica");
+        assertThat(readWriteDatabase).isEqualTo("routing_primary");
+        assertThat(database(jdbcTemplate)).isEqualTo("routing_primary");
+    }
+
+    @Test
+    void serviceReadsSeeTheReplicaAndCachedBooksCatchUpWithIt() throws Exception {
+        Book book = bookService.createBook(new Book("Original Title", "Author", "replica-routing", 2));
+        replicate(primary, replica);
+
+        Book revised = new Book("Revised Title", "Author", "replica-routing", 2);
+        revised.setAvailableCopies(2);
+        bookService.updateBook(book.getId(), revised);
+        Member member = memberService.createMember(new Member("Replica", "Member", "replica-routing@example.com",
+                "555-0100", LocalDate.of(1990, 1, 1)));
+
+        // Not replicated yet: the read-only service methods can't see either change
+        assertThat(bookService.getBookById(book.getId()).orElseThrow().getTitle()).isEqualTo("Original Title");
+        assertThat(memberService.getMemberById(member.getId())).isEmpty();
+
+        // That stale read went into the second-level cache; it must be evicted again once the replica caught up
+        replicate(primary, replica);
+        String title = null;
+        for (int i = 0; i < 100 && !"Revised Title".equals(title); i++) {
+            title = bookService.getBookById(book.getId()).orElseThrow().getTitle();
+            Thread.sleep(50);
+        }
+        assertThat(title).isEqualTo("Revised Title");
+        assertThat(memberService.getMemberById(member.getId())).isPresent();
+    }
+
+    @Test
+    void memberSummariesReadThePrimarySoTheyAreNotCachedStale() {
+        Book book = bookService.createBook(new Book("Summary Title", "Author", "replica-summary", 1));
+        Member member = memberService.createMember(new Member("Summary", "Member", "replica-summary@example.com",
+                "555-0101", LocalDate.of(1990, 1, 1)));
+        replicate(primary, replica);
+
+        // The replica still has the member with no loans; the cached summary must include the new one
+        transactionService.borrowBook(book.getId(), member.getId());
+        MemberSummary summary = memberSummaryService.getSummary(member.getId()).orElseThrow();
+        assertThat(summary.getActiveLoans()).isEqualTo(1);
+        assertThat(memberSummaryService.getSummary(member.getId()).orElseThrow().getTotalBorrows()).isEqualTo(1);
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhileTheReplicaIsDown() throws SQLException {
+        AtomicInteger replicaAttempts = new AtomicInteger();
+        DataSource downReplica = new DelegatingDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:missing_replica;IFEXISTS=TRUE", "sa", "")) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                replicaAttempts.incrementAndGet();
+                return super.getConnection();
+            }
+        };
+        Counter fallbacks = new SimpleMeterRegistry().counter("datasource.replica.fallbacks");
+        ReplicaFallbackDataSource reads = new ReplicaFallbackDataSource(downReplica, primary, 60000, fallbacks);
+
+        for (int i = 0; i < 3; i++) {
+            try (Connection connection = reads.getConnection()) {
+                assertThat(database(new JdbcTemplate(new SingleConnectionDataSource(connection, true)))).isEqualTo("routing_primary");
+            }
+        }
+        // Only the first read waited for the replica; the others went straight to the primary
+        assertThat(replicaAttempts.get()).isEqualTo(1);
+        assertThat(fallbacks.count()).isEqualTo(3);
+    }
+
+    private static String database(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT DATABASE()", String.class).toLowerCase();
+    }
+
+    private static void replicate(DataSource primary, DataSource replica) {
+        try {
+            Path script = Files.createTempFile("replica", ".sql");
+            try {
+                new JdbcTemplate(primary).execute("SCRIPT TO '" + script + "'");
+                JdbcTemplate replicaTemplate = new JdbcTemplate(replica);
+                replicaTemplate.execute("DROP ALL OBJECTS");
+                replicaTemplate.execute("RUNSCRIPT FROM '" + script + "'");
+            } finally {
+                Files.deleteIfExists(script);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.demo;
+
+import com.example.demo.model.Book;
+import com.example.demo.model.Member;
+import com.example.demo.repository.BookRepository;
+import com.example.demo.repository.MemberRepository;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bursts concurrent clients at /api/books and /api/transactions/borrow, once on Tomcat's platform-thread
+ * pool and once on virtual threads, and logs p50/p99 latency and the peak number of requests in progress.
+ * The in-memory database never blocks on I/O, so each request also waits loadTest.dbLatencyMs to stand in
+ * for the network round trips a real PostgreSQL call costs.
+ * Slow, so it only runs on request: mvn test -Dtest=RequestExecutionLoadTest -DloadTest=true
+ */
+@EnabledIfSystemProperty(named = "loadTest", matches = "true")
+class RequestExecutionLoadTest {
+    private static final Logger logger = LoggerFactory.getLogger(RequestExecutionLoadTest.class);
+
+    private static final int CLIENTS = Integer.getInteger("loadTest.clients", 400);
+    private static final int REQUESTS_PER_CLIENT = Integer.getInteger("loadTest.requests", 3);
+    private static final int DB_LATENCY_MS = Integer.getInteger("loadTest.dbLatencyMs", 20);
+    private static final int PLATFORM_THREADS = 50;
+    private static final int POOL_SIZE = 10;
+
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final AtomicInteger peakInFlight = new AtomicInteger();
+
+    private record Result(String mode, String endpoint, long p50, long p99, int peakConcurrency, int errors) {
+    }
+
+    @Test
+    void virtualThreadsServeMoreConcurrentRequestsThanThePlatformPool() throws Exception {
+        List<Result> results = new ArrayList<>();
+        results.addAll(runLoad(false));
+        results.addAll(runLoad(true));
+
+        for (Result result : results) {
+            logger.info("{} {}: p50 {} ms, p99 {} ms, peak {} in progress, {} errors", result.mode(), result.endpoint(),
+                    result.p50(), result.p99(), result.peakConcurrency(), result.errors());
+        }
+
+        for (Result result : results) {
+            assertThat(result.errors()).as(result.mode() + " " + result.endpoint()).isZero();
+            if (result.mode().equals("platform")) {
+                assertThat(result.peakConcurrency()).isLessThanOrEqualTo(PLATFORM_THREADS);
+            } else {
+                assertThat(result.peakConcurrency()).isGreaterThan(PLATFORM_THREADS);
+            }
+        }
+        // The book list needs a pooled connection only briefly, so the simulated round trips overlap on virtual
+        // threads instead of queueing behind the platform pool
+        Result platformList = results.get(0);
+        Result virtualList = results.get(2);
+        assertThat(virtualList.p99()).as("virtual GET /api/books p99 vs platform").isLessThan(platformList.p99());
+    }
+
+    private List<Result> runLoad(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoApplication.class, InFlightProbe.class)
+                .run("--server.port=0",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.example.demo.RequestExecutionLoadTest=INFO",
+                        "--spring.datasource.url=jdbc:h2:mem:load_" + mode + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                                + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--server.tomcat.threads.max=" + PLATFORM_THREADS,
+                        "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                        "--spring.datasource.hikari.connection-timeout=60000");
+        try (HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(30))
+                .build()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String baseUrl = "http://localhost:" + port;
+
+            for (int i = 0; i < 20; i++) {
+                context.getBean(BookRepository.class).save(new Book("Load Title " + i, "Author", "load-" + i, 5));
+            }
+            Book book = context.getBean(BookRepository.class).save(new Book("Hot Title", "Author", "load-hot", 1_000_000));
+            Member member = context.getBean(MemberRepository.class).save(new Member("Load", "Client",
+                    "load@example.com", "555-0100", LocalDate.of(1990, 1, 1)));
+            String token = signIn(client, baseUrl);
+
+            HttpRequest listBooks = HttpRequest.newBuilder(URI.create(baseUrl + "/api/books")).GET().build();
+            HttpRequest borrow = HttpRequest.newBuilder(URI.create(baseUrl + "/api/transactions/borrow?bookId="
+                            + book.getId() + "&memberId=" + member.getId()))
+                    .header("Authorization", "Bearer " + token)
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+
+            return List.of(burst(client, mode, "GET /api/books", listBooks),
+                    burst(client, mode, "POST /api/transactions/borrow", borrow));
+        } finally {
+            context.close();
+        }
+    }
+
+    private Result burst(HttpClient client, String mode, String endpoint, HttpRequest request) throws Exception {
+        // Warm up connections and JIT before measuring
+        for (int i = 0; i < 20; i++) {
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+        inFlight.set(0);
+        peakInFlight.set(0);
+
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTS; c++) {
+                clients.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                        long begin = System.nanoTime();
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (status >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies.add(System.nanoTime() - begin);
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            clients.shutdown();
+            assertThat(clients.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+        }
+
+        List<Long> sorted = latencies.stream().sorted().toList();
+        return new Result(mode, endpoint, percentile(sorted, 0.50), percentile(sorted, 0.99), peakInFlight.get(), errors.get());
+    }
+
+    private long percentile(List<Long> sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(sorted.get(Math.max(index, 0)));
+    }
+
+    private String signIn(HttpClient client, String baseUrl) throws Exception {
+        String credentials = "{\"username\":\"loadadmin\",\"password\":\"password123\"}";
+        client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/signup"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"loadadmin\",\"email\":\"loadadmin@example.com\","
+                        + "\"password\":\"password123\",\"role\":[\"admin\"]}"))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        String body = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/signin"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(credentials))
+                .build(), HttpResponse.BodyHandlers.ofString()).body();
+        Matcher matcher = Pattern.compile("\"accessToken\"\\s*:\\s*\"([^\"]+)\"").matcher(body);
+        assertThat(matcher.find()).as("signin response: " + body).isTrue();
+        return matcher.group(1);
+    }
+
+    // Counts requests that are being processed on a server thread, i.e. past Tomcat's queue
+    @TestConfiguration
+    static class InFlightProbe {
+        @Bean
+        FilterRegistrationBean<OncePerRequestFilter> inFlightFilter() {
+            FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(new OncePerRequestFilter() {
+                @Override
+                protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                                FilterChain filterChain) throws ServletException, IOException {
+                    if (!request.getRequestURI().startsWith("/api/books") && !request.getRequestURI().startsWith("/api/transactions")) {
+                        filterChain.doFilter(request, response);
+                        return;
+                    }
+                    peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(DB_LATENCY_MS);
+                        filterChain.doFilter(request, response);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                }
+            });
+            registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+            return registration;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.demo.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the Flyway migrations against a real PostgreSQL (in a throwaway schema) and checks that the
+ * hot repository queries are planned on their indexes. Point TEST_POSTGRES_URL at a database to run it,
+ * e.g. TEST_POSTGRES_URL=jdbc:postgresql://localhost:5432/library_db mvn test
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_POSTGRES_URL", matches = ".+")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TransactionIndexPlanTest {
+    private static final String SCHEMA = "index_plan_test";
+
+    private Connection connection;
+
+    @BeforeAll
+    void migrateAndSeed() throws SQLException {
+        String url = System.getenv("TEST_POSTGRES_URL");
+        String username = System.getenv().getOrDefault("TEST_POSTGRES_USERNAME", "postgres");
+        String password = System.getenv().getOrDefault("TEST_POSTGRES_PASSWORD", "postgres");
+
+        Flyway.configure()
+                .dataSource(url, username, password)
+                .schemas(SCHEMA)
+                .load()
+                .migrate();
+
+        connection = DriverManager.getConnection(url, username, password);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET search_path TO " + SCHEMA);
+            statement.execute("INSERT INTO books (title, author, isbn, total_copies, available_copies, category) " +
+                    "SELECT 'Title ' || g, 'Author ' || (g % 500), 'isbn-' || g, 3, 3, 'cat-' || (g % 20) " +
+                    "FROM generate_series(1, 5000) g");
+            statement.execute("INSERT INTO members (first_name, last_name, email, phone_number, date_of_birth) " +
+                    "SELECT 'First', 'Last' || g, 'member' || g || '@example.com', '555-0100', DATE '1990-01-01' " +
+                    "FROM generate_series(1, 1000) g");
+            statement.execute("INSERT INTO transactions (id, book_id, member_id, borrow_date, due_date, status) " +
+                    "SELECT g, (g % 5000) + 1, (g % 1000) + 1, CURRENT_DATE - (g % 400), CURRENT_DATE - (g % 400) + 14, " +
+                    "CASE WHEN g % 10 = 0 THEN 'BORROWED' ELSE 'RETURNED' END FROM generate_series(1, 50000) g");
+            statement.execute("ANALYZE");
+            // Make the check deterministic: any query the indexes can serve must not fall back to a seq scan
+            statement.execute("SET enable_seqscan = off");
+        }
+    }
+
+    @AfterAll
+    void dropSchema() throws SQLException {
+        if (connection != null) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+            }
+            connection.close();
+        }
+    }
+
+    @Test
+    void transactionsByMemberUseMemberStatusIndex() throws SQLException {
+        assertThat(explain("SELECT * FROM transactions t WHERE t.member_id = 42"))
+                .contains("idx_transactions_member_status");
+        assertThat(explain("SELECT * FROM transactions t WHERE t.member_id = 42 AND t.status = 'BORROWED'"))
+                .contains("idx_transactions_member_status");
+    }
+
+    @Test
+    void transactionsByBookUseBookIndex() throws SQLException {
+        assertThat(explain("SELECT * FROM transactions t WHERE t.book_id = 7"))
+                .contains("idx_transactions_book_id");
+    }
+
+    @Test
+    void overdueLoansUsePartialDueDateIndex() throws SQLException {
+        assertThat(explain("SELECT * FROM transactions t WHERE t.status = 'BORROWED' AND t.due_date < CURRENT_DATE"))
+                .contains("idx_transactions_borrowed_due_date");
+        assertThat(explain("SELECT * FROM transactions t WHERE t.status = 'BORROWED' " +
+                "AND t.due_date >= CURRENT_DATE - 1 AND t.due_date < CURRENT_DATE"))
+                .contains("idx_transactions_borrowed_due_date");
+    }
+
+    @Test
+    void bookLookupsUseTheirIndexes() throws SQLException {
+        assertThat(explain("SELECT * FROM books b WHERE b.isbn = 'isbn-17'")).contains("idx_books_isbn");
+        assertThat(explain("SELECT * FROM books b WHERE b.category = 'cat-3'")).contains("idx_books_category");
+        assertThat(explain("SELECT * FROM books b ORDER BY b.title, b.id LIMIT 21")).contains("idx_books_title_id");
+        assertThat(explain("SELECT * FROM books WHERE " + BookRepository.SEARCH_VECTOR +
+                " @@ to_tsquery('simple', 'author:* & 42:*')")).contains("idx_books_search");
+    }
+
+    private String explain(String sql) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("EXPLAIN " + sql)) {
+            while (rows.next()) {
+                plan.append(rows.getString(1)).append('\n');
+            }
+        }
+        assertThat(plan.toString()).doesNotContain("Seq Scan");
+        return plan.toString();
+    }
+}
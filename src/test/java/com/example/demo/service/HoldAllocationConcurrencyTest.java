@@ -0,0 +1,177 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.HoldResponse;
+import com.example.demo.model.Book;
+import com.example.demo.model.Hold;
+import com.example.demo.model.HoldStatus;
+import com.example.demo.model.Member;
+import com.example.demo.model.Transaction;
+import com.example.demo.model.TransactionStatus;
+import com.example.demo.repository.BookRepository;
+import com.example.demo.repository.HoldRepository;
+import com.example.demo.repository.MemberRepository;
+import com.example.demo.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class HoldAllocationConcurrencyTest {
+    private static final int CLIENTS = 64;
+    private static final int COPIES = 16;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private HoldService holdService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private HoldRepository holdRepository;
+
+    @Test
+    void returnedCopiesGoToTheOldestHoldsWhileBorrowersRetry() throws Exception {
+        Book book = bookRepository.save(new Book("Waitlisted Title", "Author", "stress-holds", COPIES));
+        List<Long> loans = new ArrayList<>();
+        for (Long memberId : createMembers("holds-loan", COPIES)) {
+            loans.add(transactionService.borrowBook(book.getId(), memberId).getId());
+        }
+
+        runConcurrently(createMembers("holds-queue", CLIENTS), memberId -> holdService.placeHold(book.getId(), memberId));
+        List<Hold> queued = holdRepository.findByBookIdAndStatusOrderByIdAsc(book.getId(), HoldStatus.WAITING);
+        assertThat(queued).hasSize(CLIENTS);
+
+        // Walk-in borrowers keep retrying while the copies come back; none of them may jump the queue
+        List<Long> walkIns = createMembers("holds-walk-in", 16);
+        AtomicBoolean returning = new AtomicBoolean(true);
+        AtomicInteger jumpedQueue = new AtomicInteger();
+        ExecutorService borrowers = Executors.newFixedThreadPool(walkIns.size());
+        List<Future<?>> attempts = new ArrayList<>();
+        for (Long memberId : walkIns) {
+            attempts.add(borrowers.submit(() -> {
+                while (returning.get()) {
+                    try {
+                        transactionService.borrowBook(book.getId(), memberId);
+                        jumpedQueue.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        // reserved for the holders
+                    }
+                }
+            }));
+        }
+        try {
+            runConcurrently(loans, transactionId -> transactionService.returnBook(transactionId));
+        } finally {
+            returning.set(false);
+            borrowers.shutdown();
+            assertThat(borrowers.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        }
+        for (Future<?> attempt : attempts) {
+            attempt.get();
+        }
+
+        assertThat(jumpedQueue.get()).isZero();
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies()).isZero();
+
+        List<Hold> fulfilled = holdRepository.findByBookIdAndStatusOrderByIdAsc(book.getId(), HoldStatus.FULFILLED);
+        assertThat(fulfilled).extracting(Hold::getId)
+                .containsExactlyElementsOf(queued.subList(0, COPIES).stream().map(Hold::getId).toList());
+
+        List<Transaction> active = transactionRepository.findByBookId(book.getId()).stream()
+                .filter(transaction -> transaction.getStatus() != TransactionStatus.RETURNED)
+                .sorted(Comparator.comparing(Transaction::getId))
+                .toList();
+        assertThat(active).hasSize(COPIES);
+        assertThat(active).extracting(Transaction::getId)
+                .containsExactlyInAnyOrderElementsOf(fulfilled.stream().map(Hold::getTransactionId).toList());
+
+        List<HoldResponse> waiting = holdService.getWaitingHolds(book.getId());
+        assertThat(waiting).extracting(HoldResponse::getId)
+                .containsExactlyElementsOf(queued.subList(COPIES, CLIENTS).stream().map(Hold::getId).toList());
+        for (int i = 0; i < waiting.size(); i++) {
+            assertThat(waiting.get(i).getPosition()).isEqualTo(i + 1);
+        }
+    }
+
+    @Test
+    void cancelledHoldIsSkipped() {
+        Book book = bookRepository.save(new Book("Single Copy", "Author", "stress-holds-cancel", 1));
+        List<Long> members = createMembers("holds-cancel", 3);
+        Transaction loan = transactionService.borrowBook(book.getId(), members.get(0));
+        HoldResponse first = holdService.placeHold(book.getId(), members.get(1));
+        HoldResponse second = holdService.placeHold(book.getId(), members.get(2));
+        assertThat(second.getPosition()).isEqualTo(2);
+
+        holdService.cancelHold(book.getId(), first.getId());
+        transactionService.returnBook(loan.getId());
+
+        HoldResponse served = holdService.getHold(book.getId(), second.getId());
+        assertThat(served.getStatus()).isEqualTo(HoldStatus.FULFILLED);
+        assertThat(transactionRepository.findById(served.getTransactionId()).orElseThrow().getStatus())
+                .isEqualTo(TransactionStatus.BORROWED);
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies()).isZero();
+    }
+
+    private List<Long> createMembers(String prefix, int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Member member = new Member("Load", "Client" + i, prefix + i + "@example.com", "555-0100",
+                    LocalDate.of(1990, 1, 1));
+            ids.add(memberRepository.save(member).getId());
+        }
+        return ids;
+    }
+
+    private interface Task {
+        void run(Long id) throws Exception;
+    }
+
+    private void runConcurrently(List<Long> ids, Task task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Throwable> failures = new ArrayList<>();
+        try {
+            for (Long id : ids) {
+                executor.submit(() -> {
+                    start.await();
+                    try {
+                        task.run(id);
+                    } catch (Throwable t) {
+                        synchronized (failures) {
+                            failures.add(t);
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+        }
+        assertThat(failures).isEmpty();
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.demo.service;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.dto.HoldResponse;
+import com.example.demo.model.Book;
+import com.example.demo.model.Hold;
+import com.example.demo.model.HoldStatus;
+import com.example.demo.model.Member;
+import com.example.demo.model.Transaction;
+import com.example.demo.model.TransactionStatus;
+import com.example.demo.repository.BookRepository;
+import com.example.demo.repository.HoldRepository;
+import com.example.demo.repository.MemberRepository;
+import com.example.demo.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Two application instances share one hold queue: holds placed on either are served in order, once, by
+ * returns on either, and neither lends a copy past the queue.
+ */
+@SpringBootTest(properties = "spring.datasource.url=" + HoldMultiInstanceTest.DATABASE_URL)
+class HoldMultiInstanceTest {
+    static final String DATABASE_URL = "jdbc:h2:mem:holds_multi_instance;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+            + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+
+    private static final int COPIES = 4;
+    private static final int HOLDS = 12;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private HoldService holdService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private HoldRepository holdRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void holdsPlacedOnEitherInstanceAreServedOnceInOrder() throws Exception {
+        // Same set-up as the second instance in OutboxDispatcherTest: its own arguments, this context's schema
+        // and no second-level cache
+        SpringApplicationBuilder otherApplication = new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE);
+        try (ConfigurableApplicationContext otherInstance = otherApplication.run("--spring.datasource.url=" + DATABASE_URL,
+                "--spring.jpa.hibernate.ddl-auto=none",
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=false")) {
+            TransactionService otherTransactions = otherInstance.getBean(TransactionService.class);
+            HoldService otherHolds = otherInstance.getBean(HoldService.class);
+            List<TransactionService> transactionServices = List.of(transactionService, otherTransactions);
+            List<HoldService> holdServices = List.of(holdService, otherHolds);
+
+            Book book = bookRepository.save(new Book("Shared Queue", "Author", "multi-instance-holds", COPIES));
+            List<Long> loans = new ArrayList<>();
+            for (Long memberId : createMembers("multi-loan", COPIES)) {
+                loans.add(transactionService.borrowBook(book.getId(), memberId).getId());
+            }
+
+            // Holds alternate between the instances
+            List<Long> holders = createMembers("multi-hold", HOLDS);
+            List<Long> queued = new ArrayList<>();
+            for (int i = 0; i < HOLDS; i++) {
+                queued.add(holdServices.get(i % 2).placeHold(book.getId(), holders.get(i)).getId());
+            }
+            Long walkIn = createMembers("multi-walk-in", 1).get(0);
+            for (TransactionService instance : transactionServices) {
+                assertThatThrownBy(() -> instance.borrowBook(book.getId(), walkIn))
+                        .hasMessage("Book is reserved for members with holds");
+            }
+
+            // Copies come back on both instances at once while walk-ins keep trying on both
+            AtomicBoolean returning = new AtomicBoolean(true);
+            AtomicInteger jumpedQueue = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(COPIES + 2);
+            List<Future<?>> tasks = new ArrayList<>();
+            for (TransactionService instance : transactionServices) {
+                tasks.add(executor.submit(() -> {
+                    while (returning.get()) {
+                        try {
+                            instance.borrowBook(book.getId(), walkIn);
+                            jumpedQueue.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            // reserved for the holders
+                        }
+                    }
+                }));
+            }
+            List<Future<?>> returns = new ArrayList<>();
+            for (int i = 0; i < COPIES; i++) {
+                Long loanId = loans.get(i);
+                TransactionService instance = transactionServices.get(i % 2);
+                returns.add(executor.submit(() -> instance.returnBook(loanId)));
+            }
+            try {
+                for (Future<?> returned : returns) {
+                    returned.get(1, TimeUnit.MINUTES);
+                }
+            } finally {
+                returning.set(false);
+                executor.shutdown();
+                assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+
+            assertThat(jumpedQueue.get()).isZero();
+            assertThat(availableCopies(book.getId())).isZero();
+            List<Hold> fulfilled = holdRepository.findByBookIdAndStatusOrderByIdAsc(book.getId(), HoldStatus.FULFILLED);
+            assertThat(fulfilled).extracting(Hold::getId).containsExactlyElementsOf(queued.subList(0, COPIES));
+            List<Transaction> active = transactionRepository.findByBookId(book.getId()).stream()
+                    .filter(transaction -> transaction.getStatus() != TransactionStatus.RETURNED)
+                    .toList();
+            assertThat(active).extracting(Transaction::getId)
+                    .containsExactlyInAnyOrderElementsOf(fulfilled.stream().map(Hold::getTransactionId).toList());
+
+            // Both instances report the same queue
+            for (HoldService instance : holdServices) {
+                List<HoldResponse> waiting = instance.getWaitingHolds(book.getId());
+                assertThat(waiting).extracting(HoldResponse::getId).containsExactlyElementsOf(queued.subList(COPIES, HOLDS));
+                assertThat(waiting).extracting(HoldResponse::getPosition)
+                        .containsExactlyElementsOf(List.of(1, 2, 3, 4, 5, 6, 7, 8));
+                assertThat(instance.getHold(book.getId(), queued.get(HOLDS - 1)).getPosition()).isEqualTo(HOLDS - COPIES);
+            }
+
+            // Once the queue is cancelled on one instance, the other lends a returned copy again
+            for (Long holdId : queued.subList(COPIES, HOLDS)) {
+                otherHolds.cancelHold(book.getId(), holdId);
+            }
+            otherTransactions.returnBook(active.get(0).getId());
+            assertThat(availableCopies(book.getId())).isEqualTo(1);
+            assertThat(transactionService.borrowBook(book.getId(), walkIn).getStatus()).isEqualTo(TransactionStatus.BORROWED);
+        }
+    }
+
+    // Read past the second-level cache, which the other instance's changes don't evict without NOTIFY
+    private int availableCopies(Long bookId) {
+        return jdbcTemplate.queryForObject("SELECT available_copies FROM books WHERE id = ?", Integer.class, bookId);
+    }
+
+    private List<Long> createMembers(String prefix, int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Member member = new Member("Multi", "Client" + i, prefix + i + "@example.com", "555-0100",
+                    LocalDate.of(1990, 1, 1));
+            ids.add(memberRepository.save(member).getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.demo.service;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.event.BookBorrowed;
+import com.example.demo.event.BookReturned;
+import com.example.demo.event.DomainEvent;
+import com.example.demo.model.Book;
+import com.example.demo.model.Member;
+import com.example.demo.model.Transaction;
+import com.example.demo.repository.BookRepository;
+import com.example.demo.repository.MemberRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two application instances share the outbox: every event must be delivered once, by one of them, and each
+ * book's events in the order they were committed.
+ */
+// Its own database: dispatchers of other cached test contexts would otherwise deliver these events too
+@SpringBootTest(properties = {"spring.datasource.url=" + OutboxDispatcherTest.DATABASE_URL,
+        "outbox.poll-interval-ms=50"})
+class OutboxDispatcherTest {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcherTest.class);
+
+    static final String DATABASE_URL = "jdbc:h2:mem:outbox_test;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+            + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+
+    private static final int BOOKS = 16;
+    private static final int CYCLES = 25;
+
+    // Shared by the recorders of both instances, so deliveries from either land in one timeline
+    private static final Map<Long, List<String>> DELIVERED = new ConcurrentHashMap<>();
+    private static final Set<Long> FAIL_ONCE = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Recorder recorder;
+
+    @TestConfiguration
+    static class RecorderConfig {
+        @Bean
+        Recorder recorder() {
+            return new Recorder();
+        }
+    }
+
+    static class Recorder {
+        final AtomicInteger delivered = new AtomicInteger();
+
+        @EventListener
+        public void on(DomainEvent event) throws InterruptedException {
+            // Slow enough that both instances find undelivered events when they poll
+            Thread.sleep(5);
+            String delivered = switch (event) {
+                case BookBorrowed borrowed -> "borrowed:" + borrowed.transactionId();
+                case BookReturned returned -> "returned:" + returned.transactionId();
+                default -> "updated";
+            };
+            // A listener that fails is retried before any later event of the same book
+            if (FAIL_ONCE.remove(event.bookId())) {
+                throw new IllegalStateException("listener failure");
+            }
+            DELIVERED.computeIfAbsent(event.bookId(), id -> Collections.synchronizedList(new ArrayList<>())).add(delivered);
+            this.delivered.incrementAndGet();
+        }
+    }
+
+    @Test
+    void eventsOfEachBookArriveOnceAndInOrder() throws Exception {
+        // Arguments, not builder properties, which application.properties would override. It reuses the schema
+        // of this context instead of creating (and at shutdown dropping) its own, and has no second-level cache:
+        // closing it would otherwise close the JVM-wide JCache manager the cached test contexts use
+        SpringApplicationBuilder otherApplication = new SpringApplicationBuilder(DemoApplication.class, RecorderConfig.class)
+                .web(WebApplicationType.NONE);
+        try (ConfigurableApplicationContext otherInstance = otherApplication.run("--spring.datasource.url=" + DATABASE_URL,
+                "--spring.jpa.hibernate.ddl-auto=none", "--outbox.poll-interval-ms=50",
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=false")) {
+            runCycles();
+            Recorder other = otherInstance.getBean(Recorder.class);
+            logger.info("Outbox events delivered: {} here, {} by the other instance",
+                    recorder.delivered.get(), other.delivered.get());
+        }
+    }
+
+    private void runCycles() throws Exception {
+        Member member = memberRepository.save(new Member("Outbox", "Reader", "outbox-reader@example.com",
+                "555-0100", LocalDate.of(1990, 1, 1)));
+        List<Long> bookIds = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            bookIds.add(bookRepository.save(new Book("Outbox Title " + i, "Author", "outbox-" + i, 1)).getId());
+        }
+        FAIL_ONCE.add(bookIds.get(0));
+
+        // Each book goes through borrow/return cycles on its own thread, all books at once
+        ExecutorService executor = Executors.newFixedThreadPool(BOOKS);
+        List<Future<List<String>>> expected = new ArrayList<>();
+        for (Long bookId : bookIds) {
+            expected.add(executor.submit(() -> {
+                List<String> events = new ArrayList<>();
+                for (int i = 0; i < CYCLES; i++) {
+                    Transaction loan = transactionService.borrowBook(bookId, member.getId());
+                    events.add("borrowed:" + loan.getId());
+                    transactionService.returnBook(loan.getId());
+                    events.add("returned:" + loan.getId());
+                }
+                return events;
+            }));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (pending() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(pending()).isZero();
+        for (int i = 0; i < BOOKS; i++) {
+            assertThat(DELIVERED.get(bookIds.get(i))).containsExactlyElementsOf(expected.get(i).get());
+        }
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM outbox_events WHERE last_error IS NOT NULL", Long.class)).isZero();
+    }
+
+    private long pending() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events WHERE dispatched_at IS NULL", Long.class);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.TransactionResponse;
+import com.example.demo.model.Book;
+import com.example.demo.model.Member;
+import com.example.demo.model.Transaction;
+import com.example.demo.model.TransactionStatus;
+import com.example.demo.repository.BookRepository;
+import com.example.demo.repository.MemberRepository;
+import com.example.demo.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:overdue_index;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+        + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000")
+class OverdueIndexTest {
+    @Autowired
+    private OverdueIndex overdueIndex;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void cursorPagesAndRunningTotalsFollowBorrowsAndReturns() {
+        LocalDate today = LocalDate.now();
+        Book first = bookRepository.save(new Book("First Overdue", "Author", "overdue-first", 5));
+        Book second = bookRepository.save(new Book("Second Overdue", "Author", "overdue-second", 5));
+        Member alice = memberRepository.save(new Member("Alice", "Late", "overdue-alice@example.com",
+                "555-0200", LocalDate.of(1990, 1, 1)));
+        Member bob = memberRepository.save(new Member("Bob", "Later", "overdue-bob@example.com",
+                "555-0201", LocalDate.of(1990, 1, 1)));
+
+        List<Transaction> loans = new ArrayList<>();
+        loans.add(overdue(first, alice, today.minusDays(3)));
+        loans.add(overdue(second, alice, today.minusDays(3)));
+        loans.add(overdue(first, bob, today.minusDays(1)));
+        loans.add(overdue(second, bob, today.minusDays(10)));
+        overdueIndex.rebuild();
+
+        // 3 + 3 + 1 + 10 days late
+        assertThat(overdueIndex.size()).isEqualTo(4);
+        assertThat(overdueIndex.totalFines()).isEqualTo(17.0);
+
+        List<Long> seen = new ArrayList<>();
+        List<TransactionResponse> page = overdueIndex.page(null, null, 3);
+        while (!page.isEmpty()) {
+            page.forEach(entry -> seen.add(entry.getId()));
+            TransactionResponse last = page.get(page.size() - 1);
+            page = overdueIndex.page(last.getDueDate(), last.getId(), 3);
+        }
+        assertThat(seen).containsExactly(loans.get(3).getId(), loans.get(0).getId(), loans.get(1).getId(),
+                loans.get(2).getId());
+
+        List<Map<String, Object>> byMember = overdueIndex.groupByMember();
+        assertThat(byMember).hasSize(2);
+        assertThat(group(byMember, bob.getId()).get("totalFines")).isEqualTo(11.0);
+        assertThat(group(byMember, alice.getId()).get("totalFines")).isEqualTo(6.0);
+
+        overdueIndex.onReturned(loans.get(3).getId());
+        assertThat(overdueIndex.totalFines()).isEqualTo(7.0);
+        assertThat(group(overdueIndex.groupByBook(), second.getId()))
+                .containsEntry("overdueCount", 1L).containsEntry("totalFines", 3.0);
+
+        overdueIndex.onReturned(loans.get(1).getId());
+        assertThat(overdueIndex.groupByBook()).hasSize(1);
+        assertThat(group(overdueIndex.groupByBook(), first.getId())).containsEntry("name", "First Overdue");
+    }
+
+    @Test
+    void rolledBackReturnLeavesTheLoanOverdue() {
+        LocalDate today = LocalDate.now();
+        Book book = bookRepository.save(new Book("Rolled Back", "Author", "overdue-rollback", 5));
+        Member member = memberRepository.save(new Member("Carol", "Late", "overdue-carol@example.com",
+                "555-0202", LocalDate.of(1990, 1, 1)));
+        Transaction loan = overdue(book, member, today.minusDays(4));
+        overdueIndex.rebuild();
+        int size = overdueIndex.size();
+        double fines = overdueIndex.totalFines();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            transactionService.returnBook(loan.getId());
+            status.setRollbackOnly();
+        });
+
+        assertThat(transactionRepository.findById(loan.getId()).orElseThrow().getStatus())
+                .isEqualTo(TransactionStatus.BORROWED);
+        assertThat(overdueIndex.size()).isEqualTo(size);
+        assertThat(overdueIndex.totalFines()).isEqualTo(fines);
+        assertThat(group(overdueIndex.groupByBook(), book.getId())).containsEntry("overdueCount", 1L);
+
+        transactionService.returnBook(loan.getId());
+        assertThat(overdueIndex.size()).isEqualTo(size - 1);
+        assertThat(overdueIndex.totalFines()).isEqualTo(fines - 4.0);
+    }
+
+    private Transaction overdue(Book book, Member member, LocalDate dueDate) {
+        Transaction transaction = new Transaction(book, member);
+        transaction.setBorrowDate(dueDate.minusDays(14));
+        transaction.setDueDate(dueDate);
+        return transactionRepository.save(transaction);
+    }
+
+    private static Map<String, Object> group(List<Map<String, Object>> groups, Long id) {
+        return groups.stream().filter(group -> id.equals(group.get("id"))).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Book;
+import com.example.demo.model.Member;
+import com.example.demo.repository.BookRepository;
+import com.example.demo.repository.MemberRepository;
+import com.example.demo.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class TransactionServiceConcurrencyTest {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionServiceConcurrencyTest.class);
+
+    private static final int CLIENTS = 64;
+
+    // Well below what the in-memory database reaches; borrows serialized behind a table lock or lock
+    // timeouts fall under it
+    private static final double MIN_BORROWS_PER_SECOND = 25;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Test
+    void concurrentBorrowsNeverOversell() throws Exception {
+        Book book = bookRepository.save(new Book("Contended Title", "Author", "stress-oversell", 50));
+        List<Long> memberIds = createMembers("oversell");
+
+        AtomicInteger borrowed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        runConcurrently(memberIds, 8, memberId -> {
+            try {
+                transactionService.borrowBook(book.getId(), memberId);
+                borrowed.incrementAndGet();
+            } catch (RuntimeException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertThat(borrowed.get()).isEqualTo(50);
+        assertThat(rejected.get()).isEqualTo(CLIENTS * 8 - 50);
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies()).isZero();
+        assertThat(transactionRepository.findByBookId(book.getId())).hasSize(50);
+    }
+
+    @Test
+    void concurrentBorrowAndReturnKeepsInventoryConsistent() throws Exception {
+        int copies = 10_000;
+        int borrowsPerClient = 20;
+        Book book = bookRepository.save(new Book("Hot Title", "Author", "stress-throughput", copies));
+        List<Long> memberIds = createMembers("throughput");
+
+        long start = System.nanoTime();
+        runConcurrently(memberIds, borrowsPerClient, memberId -> transactionService.borrowBook(book.getId(), memberId));
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        int totalBorrows = CLIENTS * borrowsPerClient;
+        double borrowsPerSecond = totalBorrows / seconds;
+        logger.info("Borrow throughput with {} concurrent clients: {} borrows in {} s ({} borrows/s)",
+                CLIENTS, totalBorrows, String.format("%.2f", seconds), String.format("%.0f", borrowsPerSecond));
+        assertThat(borrowsPerSecond).isGreaterThan(MIN_BORROWS_PER_SECOND);
+
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies())
+                .isEqualTo(copies - totalBorrows);
+
+        // Returning every loan twice in parallel must only give each copy back once
+        List<Long> transactionIds = transactionRepository.findByBookId(book.getId()).stream()
+                .map(transaction -> transaction.getId())
+                .toList();
+        AtomicInteger returned = new AtomicInteger();
+        runConcurrently(transactionIds, 1, transactionId -> returnQuietly(transactionId, returned));
+        runConcurrently(transactionIds, 1, transactionId -> returnQuietly(transactionId, returned));
+
+        assertThat(returned.get()).isEqualTo(totalBorrows);
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies()).isEqualTo(copies);
+    }
+
+    @Test
+    void overlappingBatchReturnsGiveEachCopyBackOnce() throws Exception {
+        int loans = 200;
+        Book book = bookRepository.save(new Book("Batch Returned Title", "Author", "stress-batch-return", loans));
+        List<Long> memberIds = createMembers("batch-return");
+        List<Long> transactionIds = new ArrayList<>();
+        for (int i = 0; i < loans; i++) {
+            transactionIds.add(transactionService.borrowBook(book.getId(), memberIds.get(i % CLIENTS)).getId());
+        }
+
+        // Every client returns a window of 20 loans; neighbouring windows overlap
+        List<Long> windows = new ArrayList<>();
+        for (long i = 0; i < CLIENTS; i++) {
+            windows.add(i);
+        }
+        AtomicInteger returned = new AtomicInteger();
+        runConcurrently(windows, 1, window -> {
+            int from = (int) (window * (loans - 20) / (CLIENTS - 1));
+            returned.addAndGet(transactionService.returnBooks(transactionIds.subList(from, from + 20)).getSucceeded());
+        });
+
+        assertThat(returned.get()).isEqualTo(loans);
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies()).isEqualTo(loans);
+    }
+
+    private void returnQuietly(Long transactionId, AtomicInteger returned) {
+        try {
+            transactionService.returnBook(transactionId);
+            returned.incrementAndGet();
+        } catch (RuntimeException e) {
+            // already returned by the other caller
+        }
+    }
+
+    private List<Long> createMembers(String prefix) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            Member member = new Member("Load", "Client" + i, prefix + i + "@example.com", "555-0100",
+                    LocalDate.of(1990, 1, 1));
+            ids.add(memberRepository.save(member).getId());
+        }
+        return ids;
+    }
+
+    private interface Task {
+        void run(Long id) throws Exception;
+    }
+
+    private void runConcurrently(List<Long> ids, int repetitions, Task task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Throwable> failures = new ArrayList<>();
+        try {
+            for (Long id : ids) {
+                executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < repetitions; i++) {
+                        try {
+                            task.run(id);
+                        } catch (Throwable t) {
+                            synchronized (failures) {
+                                failures.add(t);
+                            }
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+        }
+        assertThat(failures).isEmpty();
+    }
+}